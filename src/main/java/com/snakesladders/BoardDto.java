@@ -0,0 +1,65 @@
+package com.snakesladders;
+
+import java.util.List;
+import java.util.Map;
+
+public class BoardDto
+{
+	// bumps whenever the board layout or tile tasks change
+	public String revision;
+	public int size;
+
+	// from tile -> to tile
+	public Map<Integer, Integer> snakes;
+	public Map<Integer, Integer> ladders;
+
+	public List<Tile> tiles;
+
+	// optional sprite sheet holding every tile's image; null when tiles only have their own imageUrl
+	public Atlas atlas;
+
+	public static class Tile
+	{
+		public int tileIndex;
+		public String kind;
+		public String title;
+		public String description;
+		public String imageUrl;
+
+		// "obtain item X" requirements; empty for other tile kinds
+		public List<Item> items;
+
+		// skilling tiles: skill name (e.g. "FISHING") and xp to gain
+		public String skill;
+		public long xp;
+
+		// boss tiles: name as it appears in the kill count message, and kills needed
+		public String boss;
+		public int kills;
+
+		// typical minutes to complete; 0 when the organiser didn't set one
+		public int estimateMinutes;
+	}
+
+	public static class Atlas
+	{
+		public String imageUrl;
+		// tileIndex -> where that tile's image sits in the sheet
+		public Map<Integer, Rect> rects;
+	}
+
+	public static class Rect
+	{
+		public int x;
+		public int y;
+		public int w;
+		public int h;
+	}
+
+	public static class Item
+	{
+		public int itemId;
+		public int quantity;
+		public String name;
+	}
+}
@@ -0,0 +1,95 @@
+package com.snakesladders;
+
+/**
+ * Pixel geometry for a snakes & ladders board: tile 1 bottom-left, rows alternate direction.
+ * Positions are precomputed into flat arrays so renderers never do the row/column maths per frame.
+ */
+final class BoardLayout
+{
+	final int size;
+	final int cols;
+	final int rows;
+	final int cell;
+
+	// top-left corner of tile t at index t; index 0 (off the board) is unused
+	private final int[] x;
+	private final int[] y;
+
+	private BoardLayout(int size, int cell)
+	{
+		this.size = size;
+		this.cell = cell;
+		this.cols = (int) Math.ceil(Math.sqrt(size));
+		this.rows = (size + cols - 1) / cols;
+
+		x = new int[size + 1];
+		y = new int[size + 1];
+		for (int t = 1; t <= size; t++)
+		{
+			int i = t - 1;
+			int row = i / cols;
+			int col = i % cols;
+			if ((row & 1) == 1) col = cols - 1 - col;
+
+			x[t] = col * cell;
+			y[t] = (rows - 1 - row) * cell;
+		}
+	}
+
+	static BoardLayout of(int size, int cell)
+	{
+		return new BoardLayout(Math.max(1, size), Math.max(4, cell));
+	}
+
+	int width()
+	{
+		return cols * cell;
+	}
+
+	int height()
+	{
+		return rows * cell;
+	}
+
+	boolean isOnBoard(int tile)
+	{
+		return tile >= 1 && tile <= size;
+	}
+
+	int x(int tile)
+	{
+		return x[tile];
+	}
+
+	int y(int tile)
+	{
+		return y[tile];
+	}
+
+	int centerX(int tile)
+	{
+		return x[tile] + cell / 2;
+	}
+
+	int centerY(int tile)
+	{
+		return y[tile] + cell / 2;
+	}
+
+	/**
+	 * Board size from the DTO, falling back to the highest tile mentioned anywhere.
+	 */
+	static int sizeOf(BoardDto board)
+	{
+		if (board == null) return 0;
+		int size = board.size;
+		if (board.tiles != null)
+		{
+			for (BoardDto.Tile t : board.tiles)
+			{
+				if (t != null) size = Math.max(size, t.tileIndex);
+			}
+		}
+		return size;
+	}
+}
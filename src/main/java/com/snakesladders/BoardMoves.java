@@ -0,0 +1,79 @@
+package com.snakesladders;
+
+import java.util.Map;
+
+/**
+ * Movement rules for a board, flattened for the simulators: tile 0 is the start (off the board),
+ * the last tile is the finish, snakes and ladders are applied after landing, and a roll past the
+ * finish bounces back by the excess.
+ */
+final class BoardMoves
+{
+	static final int DIE = 6;
+
+	final int size;
+	// destination after landing on tile t (itself unless it's a snake or ladder head)
+	private final int[] jump;
+	// expected minutes to complete the task on tile t before rolling again
+	private final double[] minutes;
+
+	private BoardMoves(int size, int[] jump, double[] minutes)
+	{
+		this.size = size;
+		this.jump = jump;
+		this.minutes = minutes;
+	}
+
+	/**
+	 * @param defaultMinutes task time for tiles without an estimate from the backend
+	 */
+	static BoardMoves of(BoardDto board, double defaultMinutes)
+	{
+		int size = Math.max(1, BoardLayout.sizeOf(board));
+		int[] jump = new int[size + 1];
+		for (int t = 0; t <= size; t++) jump[t] = t;
+		addJumps(jump, board.snakes);
+		addJumps(jump, board.ladders);
+
+		double[] minutes = new double[size + 1];
+		for (int t = 1; t < size; t++) minutes[t] = defaultMinutes;
+		if (board.tiles != null)
+		{
+			for (BoardDto.Tile tile : board.tiles)
+			{
+				if (tile != null && tile.tileIndex >= 1 && tile.tileIndex < size && tile.estimateMinutes > 0)
+				{
+					minutes[tile.tileIndex] = tile.estimateMinutes;
+				}
+			}
+		}
+		return new BoardMoves(size, jump, minutes);
+	}
+
+	private static void addJumps(int[] jump, Map<Integer, Integer> jumps)
+	{
+		if (jumps == null) return;
+		for (Map.Entry<Integer, Integer> e : jumps.entrySet())
+		{
+			if (e.getKey() == null || e.getValue() == null) continue;
+			int from = e.getKey();
+			int to = e.getValue();
+			if (from >= 1 && from < jump.length && to >= 0 && to < jump.length) jump[from] = to;
+		}
+	}
+
+	/**
+	 * Where a piece on {@code from} ends up after rolling {@code roll}.
+	 */
+	int move(int from, int roll)
+	{
+		int to = from + roll;
+		if (to > size) to = size - (to - size);
+		return jump[Math.max(0, to)];
+	}
+
+	double minutes(int tile)
+	{
+		return minutes[tile];
+	}
+}
@@ -0,0 +1,429 @@
+package com.snakesladders;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Side panel board view for boards of a few hundred tiles.
+ *
+ * Paints through a {@link VolatileImage} back buffer. Only tiles marked dirty are redrawn into
+ * it (thumbnail arrived, a team moved over them), then the buffer is blitted. Team markers
+ * animate between tiles on a Swing timer using preallocated float arrays, so an animation
+ * frame does no allocation.
+ *
+ * All methods must be called on the EDT.
+ */
+class BoardView extends JComponent
+{
+	static final int PREFERRED_WIDTH = 200;
+
+	private static final int ANIM_FRAME_MS = 16;
+	private static final int ANIM_DURATION_MS = 350;
+
+	private static final Color TILE_A = new Color(48, 44, 38);
+	private static final Color TILE_B = new Color(64, 58, 48);
+	private static final Color SNAKE_HEAD = new Color(170, 40, 40);
+	private static final Color LADDER_FOOT = new Color(60, 150, 60);
+	private static final Color OWN_TILE = Color.WHITE;
+
+	private BoardLayout layout;
+	private int[] jumpKind = new int[0]; // 1 snake head, 2 ladder foot
+	private BufferedImage[] thumbs = new BufferedImage[0];
+
+	private VolatileImage back;
+	private boolean[] dirty = new boolean[0];
+	private int[] dirtyList = new int[0];
+	private int dirtyCount;
+	private boolean fullRedraw = true;
+
+	// team markers; positions in pixels (top-left of the marker)
+	private final Map<String, Integer> teamIndex = new HashMap<>();
+	private Color[] teamColor = new Color[0];
+	private int[] teamTile = new int[0];
+	private float[] fromX = new float[0];
+	private float[] fromY = new float[0];
+	private float[] curX = new float[0];
+	private float[] curY = new float[0];
+	private float[] toX = new float[0];
+	private float[] toY = new float[0];
+	private int ownTile = -1;
+
+	private final Timer animTimer = new Timer(ANIM_FRAME_MS, e -> animate());
+	private long animStart;
+
+	BoardView()
+	{
+		setOpaque(true);
+		setVisible(false);
+		animTimer.setCoalesce(true);
+	}
+
+	/**
+	 * New board (or revision). Thumbnails are requested through the cache and fade in as they load.
+	 */
+	void setBoard(BoardDto board, TileImageCache images)
+	{
+		animTimer.stop();
+		int size = BoardLayout.sizeOf(board);
+		if (size <= 0)
+		{
+			layout = null;
+			setVisible(false);
+			return;
+		}
+
+		int cols = (int) Math.ceil(Math.sqrt(size));
+		layout = BoardLayout.of(size, Math.max(6, PREFERRED_WIDTH / cols));
+
+		jumpKind = new int[size + 1];
+		markJumps(board.snakes, 1);
+		markJumps(board.ladders, 2);
+
+		thumbs = new BufferedImage[size + 1];
+		dirty = new boolean[size + 1];
+		dirtyList = new int[size + 1];
+		dirtyCount = 0;
+		fullRedraw = true;
+
+		// markers need re-placing against the new geometry
+		teamIndex.clear();
+		teamTile = new int[0];
+
+		setPreferredSize(new Dimension(layout.width(), layout.height()));
+		setVisible(true);
+		revalidate();
+		repaint();
+
+		if (images != null)
+		{
+			BoardLayout forLayout = layout;
+			images.fetchTiles(board, (tile, img) ->
+			{
+				if (!forLayout.isOnBoard(tile)) return;
+				// scale once off the EDT, so painting never resamples
+				BufferedImage thumb = thumbnail(img, forLayout.cell);
+				SwingUtilities.invokeLater(() ->
+				{
+					if (layout != forLayout) return;
+					thumbs[tile] = thumb;
+					markDirty(tile);
+					repaintTile(tile);
+				});
+			});
+		}
+	}
+
+	private static BufferedImage thumbnail(BufferedImage src, int cell)
+	{
+		BufferedImage dst = new BufferedImage(cell, cell, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = dst.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(src, 0, 0, cell, cell, null);
+		g.dispose();
+		return dst;
+	}
+
+	private void markJumps(Map<Integer, Integer> jumps, int kind)
+	{
+		if (jumps == null) return;
+		for (Integer from : jumps.keySet())
+		{
+			if (from != null && layout.isOnBoard(from)) jumpKind[from] = kind;
+		}
+	}
+
+	/**
+	 * Standings update. Teams that moved animate to their new tile; nothing else is touched.
+	 */
+	void setStandings(Map<String, Integer> standings, int ownTile)
+	{
+		if (layout == null) return;
+
+		if (ownTile != this.ownTile)
+		{
+			markDirtyIfOnBoard(this.ownTile);
+			markDirtyIfOnBoard(ownTile);
+			this.ownTile = ownTile;
+		}
+
+		if (standings == null) standings = new HashMap<>();
+		if (!standings.keySet().equals(teamIndex.keySet()))
+		{
+			rebuildTeams(standings);
+		}
+
+		boolean moving = false;
+		for (Map.Entry<String, Integer> e : standings.entrySet())
+		{
+			int i = teamIndex.get(e.getKey());
+			int tile = e.getValue() == null ? 0 : e.getValue();
+			if (tile == teamTile[i]) continue;
+
+			teamTile[i] = tile;
+			fromX[i] = curX[i];
+			fromY[i] = curY[i];
+			toX[i] = markerX(tile, i);
+			toY[i] = markerY(tile, i);
+			moving = true;
+		}
+
+		if (moving)
+		{
+			animStart = System.currentTimeMillis();
+			animTimer.start();
+		}
+		repaint();
+	}
+
+	private void rebuildTeams(Map<String, Integer> standings)
+	{
+		int n = standings.size();
+		teamIndex.clear();
+		teamColor = new Color[n];
+		teamTile = new int[n];
+		fromX = new float[n];
+		fromY = new float[n];
+		curX = new float[n];
+		curY = new float[n];
+		toX = new float[n];
+		toY = new float[n];
+
+		int i = 0;
+		for (Map.Entry<String, Integer> e : standings.entrySet())
+		{
+			teamIndex.put(e.getKey(), i);
+			teamColor[i] = SnakesBoardOverlay.teamColor(e.getKey());
+			int tile = e.getValue() == null ? 0 : e.getValue();
+			teamTile[i] = tile;
+			curX[i] = fromX[i] = toX[i] = markerX(tile, i);
+			curY[i] = fromY[i] = toY[i] = markerY(tile, i);
+			i++;
+		}
+		fullRedraw = true;
+	}
+
+	private void animate()
+	{
+		float t = Math.min(1f, (System.currentTimeMillis() - animStart) / (float) ANIM_DURATION_MS);
+		// ease out
+		float k = 1f - (1f - t) * (1f - t);
+
+		for (int i = 0; i < teamTile.length; i++)
+		{
+			if (curX[i] == toX[i] && curY[i] == toY[i]) continue;
+
+			markUnder(curX[i], curY[i]);
+			curX[i] = fromX[i] + (toX[i] - fromX[i]) * k;
+			curY[i] = fromY[i] + (toY[i] - fromY[i]) * k;
+			if (t >= 1f)
+			{
+				curX[i] = toX[i];
+				curY[i] = toY[i];
+			}
+			markUnder(curX[i], curY[i]);
+		}
+
+		if (t >= 1f) animTimer.stop();
+		repaint();
+	}
+
+	/**
+	 * Marks the (up to four) tiles a marker at this position overlaps.
+	 */
+	private void markUnder(float px, float py)
+	{
+		int cell = layout.cell;
+		int m = markerSize();
+		int c0 = (int) px / cell;
+		int r0 = (int) py / cell;
+		int c1 = (int) (px + m) / cell;
+		int r1 = (int) (py + m) / cell;
+		for (int r = r0; r <= r1; r++)
+		{
+			for (int c = c0; c <= c1; c++)
+			{
+				markDirtyIfOnBoard(tileAt(c, r));
+			}
+		}
+	}
+
+	private int tileAt(int col, int rowFromTop)
+	{
+		if (col < 0 || col >= layout.cols || rowFromTop < 0 || rowFromTop >= layout.rows) return -1;
+		int row = layout.rows - 1 - rowFromTop;
+		int c = (row & 1) == 1 ? layout.cols - 1 - col : col;
+		return row * layout.cols + c + 1;
+	}
+
+	private int markerSize()
+	{
+		return Math.max(3, layout.cell / 2 - 1);
+	}
+
+	private float markerX(int tile, int team)
+	{
+		if (!layout.isOnBoard(tile)) return -layout.cell; // off the board, hidden
+		return layout.x(tile) + 1 + (team % 2) * (markerSize() + 1);
+	}
+
+	private float markerY(int tile, int team)
+	{
+		if (!layout.isOnBoard(tile)) return -layout.cell;
+		return layout.y(tile) + 1 + ((team / 2) % 2) * (markerSize() + 1);
+	}
+
+	private void markDirtyIfOnBoard(int tile)
+	{
+		if (layout != null && layout.isOnBoard(tile)) markDirty(tile);
+	}
+
+	private void markDirty(int tile)
+	{
+		if (dirty[tile]) return;
+		dirty[tile] = true;
+		dirtyList[dirtyCount++] = tile;
+	}
+
+	private void repaintTile(int tile)
+	{
+		repaint(layout.x(tile), layout.y(tile), layout.cell, layout.cell);
+	}
+
+	@Override
+	protected void paintComponent(Graphics g)
+	{
+		if (layout == null) return;
+
+		GraphicsConfiguration gc = getGraphicsConfiguration();
+		if (gc == null) return;
+
+		do
+		{
+			int valid = back == null ? VolatileImage.IMAGE_INCOMPATIBLE : back.validate(gc);
+			if (valid == VolatileImage.IMAGE_INCOMPATIBLE || back.getWidth() != layout.width() || back.getHeight() != layout.height())
+			{
+				if (back != null) back.flush();
+				back = createVolatileImage(layout.width(), layout.height());
+				if (back == null) return;
+				fullRedraw = true;
+			}
+			else if (valid == VolatileImage.IMAGE_RESTORED)
+			{
+				fullRedraw = true;
+			}
+
+			renderBack();
+			g.drawImage(back, 0, 0, null);
+		}
+		while (back.contentsLost());
+	}
+
+	private void renderBack()
+	{
+		Graphics2D g = back.createGraphics();
+		try
+		{
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			if (fullRedraw)
+			{
+				g.setComposite(AlphaComposite.Src);
+				g.setColor(getBackground() == null ? Color.BLACK : getBackground());
+				g.fillRect(0, 0, layout.width(), layout.height());
+				for (int t = 1; t <= layout.size; t++) drawTile(g, t);
+				for (int i = 0; i < teamTile.length; i++) drawMarker(g, i);
+			}
+			else if (dirtyCount > 0)
+			{
+				for (int d = 0; d < dirtyCount; d++) drawTile(g, dirtyList[d]);
+				// markers overlapping a redrawn tile were painted over; put them back
+				for (int i = 0; i < teamTile.length; i++)
+				{
+					if (overlapsDirty(i)) drawMarker(g, i);
+				}
+			}
+		}
+		finally
+		{
+			g.dispose();
+		}
+
+		for (int d = 0; d < dirtyCount; d++) dirty[dirtyList[d]] = false;
+		dirtyCount = 0;
+		fullRedraw = false;
+	}
+
+	private boolean overlapsDirty(int team)
+	{
+		int cell = layout.cell;
+		int m = markerSize();
+		int c0 = (int) curX[team] / cell;
+		int r0 = (int) curY[team] / cell;
+		int c1 = (int) (curX[team] + m) / cell;
+		int r1 = (int) (curY[team] + m) / cell;
+		for (int r = r0; r <= r1; r++)
+		{
+			for (int c = c0; c <= c1; c++)
+			{
+				int t = tileAt(c, r);
+				if (t > 0 && dirty[t]) return true;
+			}
+		}
+		return false;
+	}
+
+	private void drawTile(Graphics2D g, int t)
+	{
+		int x = layout.x(t);
+		int y = layout.y(t);
+		int cell = layout.cell;
+
+		g.setComposite(AlphaComposite.Src);
+		g.setColor((t & 1) == 0 ? TILE_A : TILE_B);
+		g.fillRect(x, y, cell, cell);
+		g.setComposite(AlphaComposite.SrcOver);
+
+		if (thumbs[t] != null) g.drawImage(thumbs[t], x, y, null);
+
+		if (jumpKind[t] != 0)
+		{
+			g.setColor(jumpKind[t] == 1 ? SNAKE_HEAD : LADDER_FOOT);
+			g.fillRect(x + cell - 3, y, 3, 3);
+		}
+
+		if (t == ownTile)
+		{
+			g.setColor(OWN_TILE);
+			g.drawRect(x, y, cell - 1, cell - 1);
+		}
+	}
+
+	private void drawMarker(Graphics2D g, int team)
+	{
+		if (!layout.isOnBoard(teamTile[team]) && curX[team] < 0) return;
+		g.setColor(teamColor[team]);
+		int m = markerSize();
+		g.fillOval(Math.round(curX[team]), Math.round(curY[team]), m, m);
+	}
+
+	void dispose()
+	{
+		animTimer.stop();
+		if (back != null)
+		{
+			back.flush();
+			back = null;
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package com.snakesladders;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The JVM's default TLS context, reporting each engine it creates with the host and port it's
+ * for. The JDK HTTP client creates one engine per new TLS connection, so comparing these with
+ * requests sent to the same host shows how often a connection was reused; it exposes no
+ * connection events of its own.
+ */
+final class CountingSslContext extends SSLContext
+{
+	private CountingSslContext(Spi spi, SSLContext delegate)
+	{
+		super(spi, delegate.getProvider(), delegate.getProtocol());
+	}
+
+	/**
+	 * @param onEngine called with the peer host and port of every new engine (null and -1 when
+	 *                 the caller didn't say)
+	 */
+	static SSLContext wrap(SSLContext delegate, ObjIntConsumer<String> onEngine)
+	{
+		return new CountingSslContext(new Spi(delegate, onEngine), delegate);
+	}
+
+	private static final class Spi extends SSLContextSpi
+	{
+		private final SSLContext delegate;
+		private final ObjIntConsumer<String> onEngine;
+
+		Spi(SSLContext delegate, ObjIntConsumer<String> onEngine)
+		{
+			this.delegate = delegate;
+			this.onEngine = onEngine;
+		}
+
+		@Override
+		protected void engineInit(KeyManager[] km, TrustManager[] tm, SecureRandom sr) throws KeyManagementException
+		{
+			delegate.init(km, tm, sr);
+		}
+
+		@Override
+		protected SSLSocketFactory engineGetSocketFactory()
+		{
+			return delegate.getSocketFactory();
+		}
+
+		@Override
+		protected SSLServerSocketFactory engineGetServerSocketFactory()
+		{
+			return delegate.getServerSocketFactory();
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine()
+		{
+			onEngine.accept(null, -1);
+			return delegate.createSSLEngine();
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine(String host, int port)
+		{
+			onEngine.accept(host, port);
+			return delegate.createSSLEngine(host, port);
+		}
+
+		@Override
+		protected SSLSessionContext engineGetServerSessionContext()
+		{
+			return delegate.getServerSessionContext();
+		}
+
+		@Override
+		protected SSLSessionContext engineGetClientSessionContext()
+		{
+			return delegate.getClientSessionContext();
+		}
+
+		@Override
+		protected SSLParameters engineGetDefaultSSLParameters()
+		{
+			return delegate.getDefaultSSLParameters();
+		}
+
+		@Override
+		protected SSLParameters engineGetSupportedSSLParameters()
+		{
+			return delegate.getSupportedSSLParameters();
+		}
+	}
+}
@@ -0,0 +1,239 @@
+package com.snakesladders;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Memory and thread footprint of the plugin, sampled periodically so growth over a long event
+ * shows up against the configured budget.
+ *
+ * Sizes are estimates: decoded image rasters are exact, strings and arrays are counted at their
+ * usual 64-bit JVM cost. Thread-safe; samples are taken on a worker and read from the EDT.
+ */
+final class Diagnostics
+{
+	static final long SAMPLE_INTERVAL_MS = 30 * 60_000L;
+	// a day of samples at the interval above
+	private static final int MAX_SAMPLES = 48;
+	// this many rising samples in a row counts as growth
+	private static final int GROWTH_RUN = 6;
+
+	static final class Sample
+	{
+		long timeMs;
+		long imageBytes;
+		int images;
+		long historyBytes;
+		long modelBytes;
+		long mappedBytes;
+		int queuedTasks;
+		int httpThreads;
+		int computeThreads;
+		// "host:port" of the API; its reuse figures only count requests to it
+		String apiOrigin = "";
+		boolean apiTls;
+		long apiRequests;
+		long apiConnections;
+		// "snakes-<role>" -> live count
+		final Map<String, Integer> threads = new TreeMap<>();
+
+		/**
+		 * What counts against the budget: heap the plugin holds on to. The shared-cache mapping
+		 * is a fixed size and reported separately.
+		 */
+		long heapBytes()
+		{
+			return imageBytes + historyBytes + modelBytes;
+		}
+
+		int threadCount()
+		{
+			int n = 0;
+			for (int c : threads.values()) n += c;
+			return n;
+		}
+	}
+
+	private final List<Sample> samples = new ArrayList<>();
+	private boolean warned;
+
+	static Sample measure(TileImageCache images, EventHistory history, OverlayModel model, SharedCache sharedCache, SnakesScheduler scheduler,
+		URI apiUri)
+	{
+		Sample s = new Sample();
+		s.timeMs = System.currentTimeMillis();
+		if (images != null)
+		{
+			s.imageBytes = images.retainedBytes();
+			s.images = images.size();
+		}
+		s.historyBytes = history.retainedBytes();
+		s.modelBytes = modelBytes(model);
+		s.mappedBytes = sharedCache == null ? 0 : sharedCache.mappedBytes();
+		if (scheduler != null)
+		{
+			s.queuedTasks = scheduler.queuedTasks();
+			s.httpThreads = scheduler.httpThreads();
+			s.computeThreads = scheduler.computeThreads();
+		}
+		if (scheduler != null && apiUri != null)
+		{
+			s.apiOrigin = SnakesScheduler.origin(apiUri);
+			s.apiTls = "https".equalsIgnoreCase(apiUri.getScheme());
+			s.apiRequests = scheduler.requestsSent(apiUri);
+			s.apiConnections = scheduler.tlsConnectionsOpened(apiUri);
+		}
+
+		for (Thread t : Thread.getAllStackTraces().keySet())
+		{
+			String name = t.getName();
+			if (!t.isAlive() || !name.startsWith(SnakesScheduler.THREAD_PREFIX)) continue;
+			// "snakes-worker-2" -> "snakes-worker"
+			int dash = name.lastIndexOf('-');
+			String role = dash > SnakesScheduler.THREAD_PREFIX.length() && Character.isDigit(name.charAt(name.length() - 1)) ? name.substring(0, dash) : name;
+			s.threads.merge(role, 1, Integer::sum);
+		}
+		return s;
+	}
+
+	/**
+	 * Keeps the sample, and returns true the first time the budget is exceeded (so the caller
+	 * warns once, not every interval).
+	 */
+	synchronized boolean record(Sample s, long budgetBytes)
+	{
+		samples.add(s);
+		if (samples.size() > MAX_SAMPLES) samples.remove(0);
+
+		boolean over = budgetBytes > 0 && s.heapBytes() > budgetBytes;
+		if (!over)
+		{
+			warned = false;
+			return false;
+		}
+		if (warned) return false;
+		warned = true;
+		return true;
+	}
+
+	/**
+	 * Whether the last few samples all rose; a plugin that's just warmed up levels off instead.
+	 */
+	synchronized boolean isGrowing()
+	{
+		int n = samples.size();
+		if (n < GROWTH_RUN) return false;
+		for (int i = n - GROWTH_RUN + 1; i < n; i++)
+		{
+			if (samples.get(i).heapBytes() <= samples.get(i - 1).heapBytes()) return false;
+		}
+		return true;
+	}
+
+	synchronized String report(Sample now, long budgetBytes)
+	{
+		StringBuilder sb = new StringBuilder(1024);
+		sb.append("Tile images:     ").append(mb(now.imageBytes)).append(" (").append(now.images).append(" decoded)\n");
+		sb.append("Event history:   ").append(mb(now.historyBytes)).append('\n');
+		sb.append("Board/standings: ").append(mb(now.modelBytes)).append('\n');
+		sb.append("Heap total:      ").append(mb(now.heapBytes()));
+		if (budgetBytes > 0) sb.append(" of ").append(mb(budgetBytes)).append(" budget");
+		sb.append('\n');
+		if (now.mappedBytes > 0) sb.append("Shared cache:    ").append(mb(now.mappedBytes)).append(" mapped (off-heap, fixed)\n");
+
+		sb.append('\n');
+		sb.append("Threads:         ").append(now.threadCount()).append('\n');
+		for (Map.Entry<String, Integer> e : now.threads.entrySet())
+		{
+			sb.append("  ").append(e.getKey()).append(": ").append(e.getValue()).append('\n');
+		}
+		sb.append("HTTP pool:       ").append(now.httpThreads).append(" threads\n");
+		if (!now.apiOrigin.isEmpty())
+		{
+			sb.append("API reuse:       ").append(now.apiOrigin).append(", ").append(now.apiRequests).append(" requests");
+			if (!now.apiTls)
+			{
+				sb.append(" (plain HTTP, connections not counted)");
+			}
+			else
+			{
+				sb.append(" over ").append(now.apiConnections).append(" TLS connections");
+				if (now.apiRequests > 0)
+				{
+					long reused = Math.max(0, now.apiRequests - now.apiConnections);
+					sb.append(" (").append(reused * 100 / now.apiRequests).append("% reused)");
+				}
+			}
+			sb.append('\n');
+		}
+		sb.append("Sim pool:        ").append(now.computeThreads).append(" threads\n");
+		sb.append("Queued tasks:    ").append(now.queuedTasks).append('\n');
+
+		if (!samples.isEmpty())
+		{
+			Sample first = samples.get(0);
+			long hours = Math.max(1, Duration.ofMillis(now.timeMs - first.timeMs).toHours());
+			sb.append('\n');
+			sb.append("Since ").append(Duration.ofMillis(now.timeMs - first.timeMs).toMinutes()).append(" min ago: ")
+				.append(signedMb(now.heapBytes() - first.heapBytes()))
+				.append(" (").append(signedMb((now.heapBytes() - first.heapBytes()) / hours)).append("/h), ")
+				.append(now.threadCount() - first.threadCount() >= 0 ? "+" : "").append(now.threadCount() - first.threadCount()).append(" threads\n");
+		}
+
+		if (budgetBytes > 0 && now.heapBytes() > budgetBytes) sb.append("\nOVER BUDGET\n");
+		if (isGrowing()) sb.append("\nGrowing: heap rose in each of the last ").append(GROWTH_RUN).append(" samples\n");
+		return sb.toString();
+	}
+
+	/**
+	 * Strings at 2 bytes a char plus headers; tiles and standings entries at a rough object cost.
+	 */
+	static long modelBytes(OverlayModel model)
+	{
+		if (model == null) return 0;
+		long bytes = 0;
+		BoardDto board = model.board;
+		if (board != null && board.tiles != null)
+		{
+			for (BoardDto.Tile t : board.tiles)
+			{
+				if (t == null) continue;
+				bytes += 96 + chars(t.kind) + chars(t.title) + chars(t.description) + chars(t.imageUrl) + chars(t.skill) + chars(t.boss);
+				if (t.items != null)
+				{
+					for (BoardDto.Item i : t.items) bytes += 48 + (i == null ? 0 : chars(i.name));
+				}
+			}
+		}
+		if (board != null)
+		{
+			bytes += 48L * ((board.snakes == null ? 0 : board.snakes.size()) + (board.ladders == null ? 0 : board.ladders.size()));
+			if (board.atlas != null && board.atlas.rects != null) bytes += 64L * board.atlas.rects.size();
+		}
+		if (model.rolls != null) bytes += 8L * (model.rolls.size + 1);
+		if (model.standings != null)
+		{
+			for (String team : model.standings.keySet()) bytes += 64 + chars(team);
+		}
+		return bytes;
+	}
+
+	private static long chars(String s)
+	{
+		return s == null ? 0 : 40 + 2L * s.length();
+	}
+
+	private static String mb(long bytes)
+	{
+		return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+	}
+
+	private static String signedMb(long bytes)
+	{
+		return (bytes >= 0 ? "+" : "") + mb(bytes);
+	}
+}
@@ -0,0 +1,221 @@
+package com.snakesladders;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Fixed-capacity ring buffer of game events (rolls, proofs, phase changes, overlay revisions).
+ *
+ * Storage is preallocated parallel arrays, so memory stays flat for the whole event no matter
+ * how long it runs; the oldest entries are overwritten. Every event gets a sequence number,
+ * which lets readers and the exporter walk the buffer without holding the lock across IO.
+ */
+final class EventHistory
+{
+	static final int DEFAULT_CAPACITY = 2048;
+
+	enum Type
+	{
+		ROLL,
+		PROOF_SUBMITTED,
+		PROOF_ACCEPTED,
+		PHASE_CHANGED,
+		OVERLAY_REVISION
+	}
+
+	private static final Type[] TYPES = Type.values();
+	private static final DateTimeFormatter CLOCK = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+
+	/**
+	 * Reusable read holder, so walking the buffer doesn't allocate per record.
+	 */
+	static final class Record
+	{
+		long seq;
+		long timeMs;
+		Type type;
+		int from;
+		int to;
+		String detail;
+	}
+
+	private final int capacity;
+	private final long[] time;
+	private final byte[] type;
+	private final int[] from;
+	private final int[] to;
+	private final String[] detail;
+
+	// next sequence number to write; the oldest live one is max(0, nextSeq - capacity)
+	private long nextSeq;
+
+	EventHistory(int capacity)
+	{
+		this.capacity = capacity;
+		time = new long[capacity];
+		type = new byte[capacity];
+		from = new int[capacity];
+		to = new int[capacity];
+		detail = new String[capacity];
+	}
+
+	synchronized void add(Type t, int fromTile, int toTile, String text)
+	{
+		int i = (int) (nextSeq % capacity);
+		time[i] = System.currentTimeMillis();
+		type[i] = (byte) t.ordinal();
+		from[i] = fromTile;
+		to[i] = toTile;
+		detail[i] = text == null ? "" : text;
+		nextSeq++;
+	}
+
+	synchronized int size()
+	{
+		return (int) Math.min(nextSeq, capacity);
+	}
+
+	synchronized long firstSeq()
+	{
+		return Math.max(0, nextSeq - capacity);
+	}
+
+	synchronized long nextSeq()
+	{
+		return nextSeq;
+	}
+
+	/**
+	 * @return false if {@code seq} has already been overwritten (or not written yet)
+	 */
+	synchronized boolean read(long seq, Record out)
+	{
+		if (seq < Math.max(0, nextSeq - capacity) || seq >= nextSeq) return false;
+
+		int i = (int) (seq % capacity);
+		out.seq = seq;
+		out.timeMs = time[i];
+		out.type = TYPES[type[i]];
+		out.from = from[i];
+		out.to = to[i];
+		out.detail = detail[i];
+		return true;
+	}
+
+	/**
+	 * Approximate heap held: the preallocated arrays plus the detail strings.
+	 */
+	synchronized long retainedBytes()
+	{
+		long bytes = (long) capacity * (8 + 1 + 4 + 4 + 8);
+		for (String d : detail)
+		{
+			if (d != null) bytes += 40 + 2L * d.length();
+		}
+		return bytes;
+	}
+
+	synchronized void clear()
+	{
+		nextSeq = 0;
+		Arrays.fill(detail, null);
+	}
+
+	/**
+	 * One line for the panel list.
+	 */
+	static String format(Record r)
+	{
+		String when = CLOCK.format(Instant.ofEpochMilli(r.timeMs));
+		switch (r.type)
+		{
+			case ROLL:
+				return when + "  Roll " + r.from + " → " + r.to + (r.detail.isEmpty() ? "" : " (" + r.detail + ")");
+			case PROOF_SUBMITTED:
+				return when + "  Proof submitted (tile " + r.to + ")";
+			case PROOF_ACCEPTED:
+				return when + "  Proof accepted (tile " + r.to + ")";
+			case PHASE_CHANGED:
+				return when + "  Phase: " + r.detail;
+			default:
+				return when + "  Overlay revision " + r.detail;
+		}
+	}
+
+	/**
+	 * Streams the buffer to disk, oldest first: CSV for *.csv, NDJSON otherwise. Meant for a
+	 * background thread; the lock is only held per record, and anything overwritten while
+	 * exporting is skipped.
+	 *
+	 * @return number of records written
+	 */
+	int export(Path file) throws IOException
+	{
+		boolean csv = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+		Record r = new Record();
+		int written = 0;
+
+		try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8))
+		{
+			if (csv) w.write("seq,time,type,from,to,detail\n");
+
+			long end = nextSeq();
+			for (long seq = firstSeq(); seq < end; seq++)
+			{
+				if (!read(seq, r)) continue;
+				if (csv)
+				{
+					writeCsv(w, r);
+				}
+				else
+				{
+					writeJson(w, r);
+				}
+				written++;
+			}
+		}
+		return written;
+	}
+
+	private static void writeCsv(Writer w, Record r) throws IOException
+	{
+		w.write(Long.toString(r.seq));
+		w.write(',');
+		w.write(Instant.ofEpochMilli(r.timeMs).toString());
+		w.write(',');
+		w.write(r.type.name());
+		w.write(',');
+		w.write(Integer.toString(r.from));
+		w.write(',');
+		w.write(Integer.toString(r.to));
+		w.write(",\"");
+		w.write(r.detail.replace("\"", "\"\""));
+		w.write("\"\n");
+	}
+
+	private static void writeJson(Writer w, Record r) throws IOException
+	{
+		w.write("{\"seq\":");
+		w.write(Long.toString(r.seq));
+		w.write(",\"time\":\"");
+		w.write(Instant.ofEpochMilli(r.timeMs).toString());
+		w.write("\",\"type\":\"");
+		w.write(r.type.name());
+		w.write("\",\"from\":");
+		w.write(Integer.toString(r.from));
+		w.write(",\"to\":");
+		w.write(Integer.toString(r.to));
+		w.write(",\"detail\":\"");
+		w.write(SnakesApi.escape(r.detail).replace("\n", "\\n"));
+		w.write("\"}\n");
+	}
+}
@@ -0,0 +1,259 @@
+package com.snakesladders;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opt-in trace of every backend exchange, written as gzip'd NDJSON under
+ * {@code .runelite/snakesladders/}.
+ *
+ * Callers only {@link #record} into a bounded queue; the scheduler's writer thread does the
+ * formatting, redaction and IO. When the queue is full the record is dropped and counted,
+ * so tracing can never stall a poll or a roll. Files rotate by compressed size.
+ */
+@Slf4j
+final class HttpTrace
+{
+	static final String FILE_NAME = "http-trace.ndjson.gz";
+
+	private static final int QUEUE_CAPACITY = 1024;
+	private static final long MAX_FILE_BYTES = 1024 * 1024;
+	private static final int KEEP_FILES = 4;
+	private static final String REDACTED = "[redacted]";
+
+	/**
+	 * One exchange. Timings are nanoTime deltas from the start of the send; -1 when unknown.
+	 */
+	static final class Exchange
+	{
+		final long startMs = System.currentTimeMillis();
+		final long startNs = System.nanoTime();
+		final String endpoint;
+		final String method;
+		final URI uri;
+		final String[] secrets;
+
+		volatile long headersNs = -1;
+		volatile long bytes = -1;
+		long totalNs = -1;
+		int status = -1;
+		String etag;
+		String error;
+
+		Exchange(String endpoint, String method, URI uri, String[] secrets)
+		{
+			this.endpoint = endpoint;
+			this.method = method;
+			this.uri = uri;
+			this.secrets = secrets;
+		}
+
+		/**
+		 * Wraps a string body handler so the time to response headers and the body size are captured.
+		 */
+		HttpResponse.BodyHandler<String> handler()
+		{
+			return info ->
+			{
+				headersNs = System.nanoTime() - startNs;
+				return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), b ->
+				{
+					bytes = b.length;
+					return new String(b, StandardCharsets.UTF_8);
+				});
+			};
+		}
+
+		void finish(HttpResponse<?> res, Throwable ex)
+		{
+			totalNs = System.nanoTime() - startNs;
+			if (res != null)
+			{
+				status = res.statusCode();
+				etag = SnakesApi.firstHeader(res, "etag");
+			}
+			if (ex != null)
+			{
+				error = ex.getClass().getSimpleName() + (ex.getMessage() == null ? "" : ": " + ex.getMessage());
+			}
+		}
+	}
+
+	private final File dir;
+	private final QueuedWriter<Exchange> writer;
+
+	private CountingOutputStream counter;
+	private Writer out;
+
+	HttpTrace(File dir, SnakesScheduler scheduler)
+	{
+		this.dir = dir;
+		writer = new QueuedWriter<>(scheduler, "HTTP trace", QUEUE_CAPACITY, new QueuedWriter.Sink<>()
+		{
+			@Override
+			public void write(Exchange ex) throws IOException
+			{
+				HttpTrace.this.write(ex);
+				if (counter.count >= MAX_FILE_BYTES) rotate();
+			}
+
+			@Override
+			public void flush() throws IOException
+			{
+				// make what we have readable with zcat without closing the file
+				if (out != null) out.flush();
+			}
+
+			@Override
+			public void close()
+			{
+				closeFile();
+			}
+		});
+	}
+
+	/**
+	 * Never blocks; returns false (and counts a drop) when the writer is behind or closed.
+	 */
+	boolean record(Exchange ex)
+	{
+		return writer.offer(ex);
+	}
+
+	long getDropped()
+	{
+		return writer.getDropped();
+	}
+
+	/**
+	 * Stops the writer after it drains what's already queued.
+	 */
+	void close()
+	{
+		writer.close();
+	}
+
+	private void write(Exchange ex) throws IOException
+	{
+		if (out == null) open();
+
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("{\"time\":\"").append(Instant.ofEpochMilli(ex.startMs))
+			.append("\",\"endpoint\":\"").append(ex.endpoint)
+			.append("\",\"method\":\"").append(ex.method)
+			.append("\",\"url\":\"").append(json(redact(String.valueOf(ex.uri), ex.secrets)))
+			.append("\",\"status\":").append(ex.status)
+			.append(",\"etag\":").append(ex.etag == null ? "null" : "\"" + json(ex.etag) + "\"")
+			.append(",\"bytes\":").append(ex.bytes)
+			.append(",\"headersMs\":").append(millis(ex.headersNs))
+			.append(",\"totalMs\":").append(millis(ex.totalNs))
+			.append(",\"dropped\":").append(writer.getDropped());
+		if (ex.error != null)
+		{
+			sb.append(",\"error\":\"").append(json(redact(ex.error, ex.secrets))).append('"');
+		}
+		sb.append("}\n");
+		out.write(sb.toString());
+	}
+
+	private void open() throws IOException
+	{
+		if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+		File file = new File(dir, FILE_NAME);
+		// appending starts a new gzip member, which zcat / GZIPInputStream read through
+		counter = new CountingOutputStream(new FileOutputStream(file, true));
+		counter.count = file.length();
+		out = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(counter, 8192, true), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * http-trace.ndjson.gz becomes .1.gz, .1 becomes .2, ... and the oldest is deleted.
+	 */
+	private void rotate() throws IOException
+	{
+		closeFile();
+		String base = FILE_NAME.substring(0, FILE_NAME.length() - ".gz".length());
+		Files.deleteIfExists(new File(dir, base + "." + KEEP_FILES + ".gz").toPath());
+		for (int i = KEEP_FILES - 1; i >= 1; i--)
+		{
+			File f = new File(dir, base + "." + i + ".gz");
+			if (f.exists()) Files.move(f.toPath(), new File(dir, base + "." + (i + 1) + ".gz").toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		Files.move(new File(dir, FILE_NAME).toPath(), new File(dir, base + ".1.gz").toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private void closeFile()
+	{
+		if (out == null) return;
+		try
+		{
+			out.close();
+		}
+		catch (IOException e)
+		{
+			log.debug("HTTP trace close failed", e);
+		}
+		out = null;
+		counter = null;
+	}
+
+	static String redact(String s, String[] secrets)
+	{
+		if (s == null || secrets == null) return s;
+		for (String secret : secrets)
+		{
+			if (secret != null && !secret.isEmpty()) s = s.replace(secret, REDACTED);
+		}
+		return s;
+	}
+
+	private static String json(String s)
+	{
+		return SnakesApi.escape(s).replace("\n", "\\n").replace("\r", "\\r");
+	}
+
+	private static String millis(long ns)
+	{
+		if (ns < 0) return "-1";
+		return Double.toString(Math.round(ns / 10_000.0) / 100.0);
+	}
+
+	private static final class CountingOutputStream extends FilterOutputStream
+	{
+		long count;
+
+		CountingOutputStream(OutputStream out)
+		{
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+}
@@ -1,113 +1,99 @@
 package com.snakesladders;
 
-import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.Map;
 
 /**
- * Simple mutable model for UI/InfoBox display.
- * (We’ll likely delete this later once the InfoBox is fully driven by /overlay.)
+ * Everything the UI shows about the game, as one immutable value.
+ *
+ * The plugin builds a new model for each change and publishes it with a single reference swap,
+ * so the InfoBox, panel and board overlay read a consistent set of fields (snapshot, board and
+ * standings from the same moment) without taking a lock. Fields may be null until loaded.
  */
 public final class OverlayModel
 {
-	private String clanName = "";
-	private String teamName = "";
-	private String statusLine = "";
-	private String countdownLine = "";
-	private String tileLine = "";
-	private String tileTitle = "";
-	private String tileDescription = "";
-	private BufferedImage tileImage = null;
+	static final OverlayModel EMPTY = new OverlayModel(null, null, null, null, "", "");
 
-	/* -------------------- getters -------------------- */
+	final SnakesLaddersPlugin.OverlaySnapshot snapshot;
+	final BoardDto board;
+	// expected rolls per tile for this board
+	final RollSolver.Solution rolls;
+	// teamName -> tile number, read-only
+	final Map<String, Integer> standings;
+	final String clanName;
+	final String teamName;
 
-	public synchronized String getClanName()
+	private OverlayModel(
+		SnakesLaddersPlugin.OverlaySnapshot snapshot,
+		BoardDto board,
+		RollSolver.Solution rolls,
+		Map<String, Integer> standings,
+		String clanName,
+		String teamName
+	)
 	{
-		return clanName;
+		this.snapshot = snapshot;
+		this.board = board;
+		this.rolls = rolls;
+		this.standings = standings;
+		this.clanName = clanName;
+		this.teamName = teamName;
 	}
 
-	public synchronized String getTeamName()
+	OverlayModel withSnapshot(SnakesLaddersPlugin.OverlaySnapshot snapshot)
 	{
-		return teamName;
+		return new OverlayModel(snapshot, board, rolls, standings, clanName, teamName);
 	}
 
-	public synchronized String getStatusLine()
+	OverlayModel withBoard(BoardDto board, RollSolver.Solution rolls)
 	{
-		return statusLine;
+		return new OverlayModel(snapshot, board, rolls, standings, clanName, teamName);
 	}
 
-	public synchronized String getCountdownLine()
+	OverlayModel withStandings(Map<String, Integer> standings)
 	{
-		return countdownLine;
+		Map<String, Integer> st = standings == null ? null : Collections.unmodifiableMap(standings);
+		return new OverlayModel(snapshot, board, rolls, st, clanName, teamName);
 	}
 
-	public synchronized String getTileLine()
+	OverlayModel withTeam(String clanName, String teamName)
 	{
-		return tileLine;
+		return new OverlayModel(snapshot, board, rolls, standings, nullToEmpty(clanName), nullToEmpty(teamName));
 	}
 
-	public synchronized String getTileTitle()
+	/**
+	 * Drops the game state (snapshot, board, standings) but keeps who we are.
+	 */
+	OverlayModel cleared()
 	{
-		return tileTitle;
+		return EMPTY.withTeam(clanName, teamName);
 	}
 
-	public synchronized String getTileDescription()
+	int ownTile()
 	{
-		return tileDescription;
+		return snapshot == null ? -1 : snapshot.tileIndex;
 	}
 
-	public synchronized BufferedImage getTileImage()
+	/**
+	 * Expected rolls to finish from {@code tile} on the current board, NaN when unknown.
+	 */
+	double rollsLeft(int tile)
 	{
-		return tileImage;
+		return rolls == null ? Double.NaN : rolls.expectedRolls(tile);
 	}
 
-	/* -------------------- setters -------------------- */
-
-	public synchronized void setClanName(String clanName)
-	{
-		this.clanName = clanName == null ? "" : clanName;
-	}
-
-	public synchronized void setTeamName(String teamName)
-	{
-		this.teamName = teamName == null ? "" : teamName;
-	}
-
-	public synchronized void setStatusLine(String statusLine)
-	{
-		this.statusLine = statusLine == null ? "" : statusLine;
-	}
-
-	public synchronized void setCountdownLine(String countdownLine)
+	BoardDto.Tile boardTile(int tileIndex)
 	{
-		this.countdownLine = countdownLine == null ? "" : countdownLine;
+		if (board == null || board.tiles == null) return null;
+		for (BoardDto.Tile t : board.tiles)
+		{
+			if (t != null && t.tileIndex == tileIndex) return t;
+		}
+		return null;
 	}
 
-	public synchronized void setTileLine(String tileLine)
-	{
-		this.tileLine = tileLine == null ? "" : tileLine;
-	}
-
-	public synchronized void setTileTitle(String tileTitle)
-	{
-		this.tileTitle = tileTitle == null ? "" : tileTitle;
-	}
-
-	public synchronized void setTileDescription(String tileDescription)
-	{
-		this.tileDescription = tileDescription == null ? "" : tileDescription;
-	}
-
-	public synchronized void setTileImage(BufferedImage tileImage)
-	{
-		this.tileImage = tileImage;
-	}
-
-	/* -------------------- helpers -------------------- */
-
-	public synchronized void clearTile()
+	private static String nullToEmpty(String s)
 	{
-		tileLine = "";
-		tileTitle = "";
-		tileDescription = "";
-		tileImage = null;
+		return s == null ? "" : s;
 	}
 }
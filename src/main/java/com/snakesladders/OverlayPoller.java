@@ -0,0 +1,350 @@
+package com.snakesladders;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * The /overlay poll loop, run on scheduler workers so a request (or the shared cache's file
+ * lock) never blocks the client thread.
+ *
+ * A poll does the conditional fetch, parses a new body and fetches /board when its revision moved
+ * and /state for the standings, all on the worker, publishes the result to the model, then tells
+ * the listener on the client thread. Each poll schedules the next from the server's hint; a
+ * poll from a cycle that has since been stopped neither hands anything over nor reschedules.
+ * Snapshots shared by a party leader take the same path.
+ */
+@Slf4j
+final class OverlayPoller
+{
+	interface Listener
+	{
+		/** Worker: a new board, just before it's published to the model. */
+		void boardLoaded(BoardDto board);
+
+		/** Client thread: a new overlay, already in the model with its board and standings. */
+		void overlayApplied(SnakesApiClient api, OverlayModel before, OverlayModel after, String etag);
+
+		/** Client thread: the last poll failed. */
+		void overlayFailed();
+
+		/** Client thread: there's no game to poll. */
+		void notConnected();
+	}
+
+	private final SnakesLaddersConfig config;
+	private final SnakesScheduler scheduler;
+	private final Executor clientThread;
+	private final Supplier<SnakesApiClient> api;
+	private final AtomicReference<OverlayModel> model;
+	// null when party sharing isn't available
+	private final PartySync partySync;
+	private final Listener listener;
+	private final Gson gson = new Gson();
+
+	// bumped whenever polling stops or restarts, so a poll from an older cycle doesn't reschedule
+	private volatile int generation;
+	private volatile boolean running;
+	// set from the client thread; polls skip the network while the client is inactive
+	private volatile boolean clientActive = true;
+	private volatile String rsn = "";
+	private volatile String overlayEtag;
+	private volatile String boardEtag;
+	private volatile String boardRevision;
+	private ScheduledFuture<?> nextPoll;
+
+	OverlayPoller(SnakesLaddersConfig config, SnakesScheduler scheduler, Executor clientThread, Supplier<SnakesApiClient> api,
+		AtomicReference<OverlayModel> model, PartySync partySync, Listener listener)
+	{
+		this.config = config;
+		this.scheduler = scheduler;
+		this.clientThread = clientThread;
+		this.api = api;
+		this.model = model;
+		this.partySync = partySync;
+		this.listener = listener;
+	}
+
+	/**
+	 * Client thread: whether the client is logged in and visible, and who's logged in.
+	 */
+	void setClientState(boolean active, String rsn)
+	{
+		this.clientActive = active;
+		this.rsn = rsn == null ? "" : rsn;
+	}
+
+	/**
+	 * Forgets the last ETags and board revision, for a new game or connection. Suspending and
+	 * resuming keeps them, so the first request back is a cheap conditional fetch.
+	 */
+	void reset()
+	{
+		overlayEtag = null;
+		boardEtag = null;
+		boardRevision = null;
+	}
+
+	/** The /board ETag, for a prewarm request that can be answered with a 304. */
+	String boardEtag()
+	{
+		return boardEtag;
+	}
+
+	/**
+	 * Starts a new poll cycle, stopping any running one; the first poll runs right away.
+	 */
+	synchronized void start()
+	{
+		stop();
+		running = true;
+		scheduleNext(generation, 0);
+	}
+
+	/**
+	 * A poll already running finishes its request but doesn't hand anything over.
+	 */
+	synchronized void stop()
+	{
+		running = false;
+		generation++;
+		if (nextPoll != null)
+		{
+			nextPoll.cancel(false);
+			nextPoll = null;
+		}
+	}
+
+	/**
+	 * Any thread: a message from a party member, applied like our own poll if it's a new
+	 * snapshot from the leader.
+	 */
+	void onShared(SnakesPartyMessage msg)
+	{
+		int generation = this.generation;
+		if (!running) return;
+
+		try
+		{
+			scheduler.execute(SnakesScheduler.Priority.NORMAL, () ->
+			{
+				SnakesApiClient api = this.api.get();
+				PartySync sync = sharing(api);
+				if (sync == null || !clientActive || generation != this.generation) return;
+				if (!sync.accept(msg, System.currentTimeMillis())) return;
+
+				try
+				{
+					load(generation, api, msg.body, msg.etag, msg.standings);
+				}
+				catch (Exception ex)
+				{
+					log.debug("Shared overlay error", ex);
+				}
+			});
+		}
+		catch (RejectedExecutionException ignored)
+		{
+			// shutting down
+		}
+	}
+
+	private synchronized void scheduleNext(int generation, long delayMs)
+	{
+		if (generation != this.generation) return;
+
+		try
+		{
+			nextPoll = scheduler.schedule(SnakesScheduler.Priority.NORMAL, () -> poll(generation), delayMs);
+		}
+		catch (RejectedExecutionException ignored)
+		{
+			// shut down
+		}
+	}
+
+	private void poll(int generation)
+	{
+		if (generation != this.generation) return;
+
+		SnakesApiClient api = this.api.get();
+		long nextMs = api != null ? api.nextPollDelayMs(-1) : SnakesApiClient.DEFAULT_POLL_MS;
+		try
+		{
+			if (clientActive) nextMs = pollOnce(generation, api);
+		}
+		catch (Exception ex)
+		{
+			log.debug("Overlay poll error", ex);
+			onClientThread(generation, listener::overlayFailed);
+		}
+		finally
+		{
+			scheduleNext(generation, nextMs);
+		}
+	}
+
+	/**
+	 * Worker: one conditional fetch.
+	 *
+	 * @return delay before the next poll, in ms
+	 */
+	long pollOnce(int generation, SnakesApiClient api) throws IOException, InterruptedException
+	{
+		if (api == null || !api.hasGameId())
+		{
+			onClientThread(generation, listener::notConnected);
+			return SnakesApiClient.DEFAULT_POLL_MS;
+		}
+
+		PartySync sync = sharing(api);
+		if (sync != null)
+		{
+			long now = System.currentTimeMillis();
+			sync.heartbeat(now);
+			// a teammate is polling for us; their snapshots come in through onShared
+			if (sync.isFollower(now)) return api.nextPollDelayMs(-1);
+		}
+
+		SnakesApi.ApiResult res = api.getOverlay(rsn, overlayEtag);
+		if (res.etag != null && !res.etag.trim().isEmpty())
+		{
+			overlayEtag = res.etag.trim();
+		}
+
+		long nextMs = api.nextPollDelayMs(res.serverDelaySeconds);
+		if (res.isThrottled())
+		{
+			log.debug("Overlay throttled ({}), next poll in {}ms", res.statusCode, nextMs);
+			return nextMs;
+		}
+
+		if (res.isNotModified()) return nextMs;
+		if (res.body == null || res.body.trim().isEmpty()) return nextMs;
+
+		OverlayModel after = load(generation, api, res.body, res.etag, null);
+		if (after != null && sync != null) sync.publish(overlayEtag, res.body, after.standings, System.currentTimeMillis());
+		return nextMs;
+	}
+
+	/**
+	 * Worker: parses an /overlay body, brings the board and standings up to date and publishes
+	 * them, then tells the client thread. Standings shared by the party leader come with the body,
+	 * so /state isn't fetched again.
+	 *
+	 * @return the published model, or null if this cycle has been stopped
+	 */
+	private OverlayModel load(int generation, SnakesApiClient api, String body, String etag, Map<String, Integer> sharedStandings)
+	{
+		if (etag != null && !etag.trim().isEmpty())
+		{
+			overlayEtag = etag.trim();
+		}
+
+		SnakesLaddersPlugin.OverlaySnapshot snap = SnakesLaddersPlugin.OverlaySnapshot.fromJson(gson.fromJson(body, JsonObject.class));
+		BoardDto board = fetchBoard(api, snap);
+		RollSolver.Solution rolls = board == null ? null : solveRolls(board);
+		if (board != null) listener.boardLoaded(board);
+		Map<String, Integer> standings = sharedStandings != null ? sharedStandings : fetchStandings(api);
+
+		OverlayModel before;
+		OverlayModel after;
+		// under the lock so a stopped cycle can't publish over the model the next one cleared
+		synchronized (this)
+		{
+			if (generation != this.generation) return null;
+			before = model.getAndUpdate(m ->
+			{
+				OverlayModel next = m.withSnapshot(snap);
+				if (board != null) next = next.withBoard(board, rolls);
+				return standings != null ? next.withStandings(standings) : next;
+			});
+			after = model.get();
+		}
+		onClientThread(generation, () -> listener.overlayApplied(api, before, after, etag));
+		return after;
+	}
+
+	/**
+	 * Fetches /board on first overlay and whenever the overlay reports a new board revision.
+	 * A board failure shouldn't take the overlay down, so errors are only logged.
+	 *
+	 * @return the new board, or null when it's unchanged or couldn't be loaded
+	 */
+	private BoardDto fetchBoard(SnakesApiClient api, SnakesLaddersPlugin.OverlaySnapshot snap)
+	{
+		if (model.get().board != null && snap.boardRevision.equals(boardRevision)) return null;
+
+		try
+		{
+			SnakesApi.ApiResult res = api.getBoard(boardEtag);
+			boardRevision = snap.boardRevision;
+			if (res.etag != null && !res.etag.trim().isEmpty()) boardEtag = res.etag.trim();
+			if (res.body == null || res.body.trim().isEmpty()) return null;
+
+			BoardDto b = gson.fromJson(res.body, BoardDto.class);
+			if (b == null) return null;
+			log.debug("Loaded board revision {} ({} tiles)", b.revision, b.tiles == null ? 0 : b.tiles.size());
+			return b;
+		}
+		catch (Exception ex)
+		{
+			log.debug("Board fetch error", ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Team positions come from /state; only fetched when the overlay revision moved.
+	 *
+	 * @return the standings, or null when they couldn't be loaded
+	 */
+	private Map<String, Integer> fetchStandings(SnakesApiClient api)
+	{
+		try
+		{
+			SnakesApi.ApiResult res = api.getGameState();
+			if (res.body == null || res.body.trim().isEmpty()) return null;
+
+			GameStateDto state = gson.fromJson(res.body, GameStateDto.class);
+			return state != null ? state.standings : null;
+		}
+		catch (Exception ex)
+		{
+			log.debug("State fetch error", ex);
+			return null;
+		}
+	}
+
+	private RollSolver.Solution solveRolls(BoardDto b)
+	{
+		long start = System.nanoTime();
+		RollSolver.Solution solution = RollSolver.solve(BoardMoves.of(b, config.tileMinutes()));
+		log.debug("Solved expected rolls for {} tiles in {} µs", solution.size, (System.nanoTime() - start) / 1000);
+		return solution;
+	}
+
+	/**
+	 * The party to share with, or null: a replay is nobody else's business.
+	 */
+	private PartySync sharing(SnakesApiClient api)
+	{
+		return partySync != null && config.partySync() && api != null && !api.isReplay() ? partySync : null;
+	}
+
+	private void onClientThread(int generation, Runnable r)
+	{
+		clientThread.execute(() ->
+		{
+			if (generation == this.generation) r.run();
+		});
+	}
+}
@@ -0,0 +1,181 @@
+package com.snakesladders;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Lets one member of a RuneLite party poll /overlay for everyone on the same team.
+ *
+ * Members announce themselves with a heartbeat; among live members with the same game and team
+ * token the lowest member id leads. The leader polls as usual and broadcasts each new response;
+ * followers apply those instead of polling, and go back to polling on their own as soon as the
+ * leader's snapshots stop arriving. /overlay has no game-wide part to split out, so sharing is
+ * scoped to one team - party members on other teams just keep polling.
+ */
+final class PartySync
+{
+	static final long HEARTBEAT_MS = 10_000;
+	static final long LEADER_TIMEOUT_MS = 30_000;
+
+	interface Transport
+	{
+		boolean isInParty();
+
+		/**
+		 * @return the local party member id, or -1 when not in a party
+		 */
+		long localMemberId();
+
+		void send(SnakesPartyMessage message);
+	}
+
+	private final Transport transport;
+
+	private String gameId = "";
+	private String teamKey; // null: nothing to share (no team token)
+
+	// memberId -> last time we heard from them, same game and team only
+	private final Map<Long, Long> peers = new HashMap<>();
+	private long lastHeartbeatMs;
+
+	// last snapshot published (as leader) or applied (as follower)
+	private String etag;
+	private String body;
+	private Map<String, Integer> standings;
+	private long leaderId = -1;
+	private long leaderSnapshotMs;
+
+	PartySync(Transport transport)
+	{
+		this.transport = transport;
+	}
+
+	synchronized void setIdentity(String gameId, String jwtToken)
+	{
+		String g = gameId == null ? "" : gameId.trim();
+		String t = jwtToken == null ? "" : jwtToken.trim();
+		String key = g.isEmpty() || t.isEmpty() ? null : SnakesApi.teamKey(g, t);
+		if (g.equals(this.gameId) && (key == null ? teamKey == null : key.equals(teamKey))) return;
+
+		this.gameId = g;
+		this.teamKey = key;
+		reset();
+	}
+
+	synchronized void reset()
+	{
+		peers.clear();
+		etag = null;
+		body = null;
+		standings = null;
+		leaderId = -1;
+		leaderSnapshotMs = 0;
+		lastHeartbeatMs = 0;
+	}
+
+	synchronized void memberLeft(long memberId)
+	{
+		peers.remove(memberId);
+		if (memberId == leaderId) leaderSnapshotMs = 0;
+	}
+
+	/**
+	 * True while a live leader (not us) is feeding snapshots, i.e. we shouldn't poll ourselves.
+	 */
+	synchronized boolean isFollower(long nowMs)
+	{
+		if (!isSharing()) return false;
+		long leader = leader(nowMs);
+		return leader != transport.localMemberId()
+			&& leader == leaderId
+			&& nowMs - leaderSnapshotMs < LEADER_TIMEOUT_MS;
+	}
+
+	/**
+	 * Sends a heartbeat if one is due. The leader's heartbeat repeats its last snapshot so members
+	 * that just joined have something to show.
+	 */
+	void heartbeat(long nowMs)
+	{
+		SnakesPartyMessage msg;
+		synchronized (this)
+		{
+			if (!isSharing() || nowMs - lastHeartbeatMs < HEARTBEAT_MS) return;
+			lastHeartbeatMs = nowMs;
+
+			boolean leading = leader(nowMs) == transport.localMemberId();
+			msg = new SnakesPartyMessage(gameId, teamKey,
+				leading ? etag : null, leading ? body : null, leading ? standings : null);
+		}
+		// outside the lock: a transport may deliver synchronously into another member's accept()
+		transport.send(msg);
+	}
+
+	/**
+	 * Leader side: broadcast a fresh /overlay response straight away.
+	 */
+	void publish(String etag, String body, Map<String, Integer> standings, long nowMs)
+	{
+		SnakesPartyMessage msg;
+		synchronized (this)
+		{
+			this.etag = etag;
+			this.body = body;
+			this.standings = standings;
+			if (!isSharing() || leader(nowMs) != transport.localMemberId()) return;
+
+			lastHeartbeatMs = nowMs;
+			msg = new SnakesPartyMessage(gameId, teamKey, etag, body, standings);
+		}
+		transport.send(msg);
+	}
+
+	/**
+	 * Follower side: records the sender as alive and reports whether its snapshot should be applied
+	 * (it comes from the current leader and its ETag is one we haven't seen).
+	 */
+	synchronized boolean accept(SnakesPartyMessage msg, long nowMs)
+	{
+		if (!isSharing() || msg == null) return false;
+		if (!gameId.equals(msg.gameId) || !teamKey.equals(msg.teamKey)) return false;
+
+		long from = msg.getMemberId();
+		if (from == transport.localMemberId()) return false;
+		peers.put(from, nowMs);
+
+		if (msg.body == null || from != leader(nowMs)) return false;
+
+		leaderId = from;
+		leaderSnapshotMs = nowMs;
+		if (msg.etag != null && msg.etag.equals(etag)) return false;
+
+		etag = msg.etag;
+		body = msg.body;
+		standings = msg.standings;
+		return true;
+	}
+
+	private boolean isSharing()
+	{
+		return teamKey != null && transport.isInParty() && transport.localMemberId() >= 0;
+	}
+
+	private long leader(long nowMs)
+	{
+		long leader = transport.localMemberId();
+		for (Iterator<Map.Entry<Long, Long>> it = peers.entrySet().iterator(); it.hasNext(); )
+		{
+			Map.Entry<Long, Long> e = it.next();
+			if (nowMs - e.getValue() >= LEADER_TIMEOUT_MS)
+			{
+				it.remove();
+			}
+			else if (e.getKey() < leader)
+			{
+				leader = e.getKey();
+			}
+		}
+		return leader;
+	}
+}
@@ -0,0 +1,185 @@
+package com.snakesladders;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Downscale + encode for screenshot proofs. Runs on a background thread, never the client thread.
+ */
+final class ProofImages
+{
+	private static final float JPEG_QUALITY = 0.85f;
+	// scene dHash grid: 9 columns give 8 left/right comparisons per row, 8 rows -> 64 bits
+	private static final int SCENE_W = 9;
+	private static final int SCENE_H = 8;
+	// chat dHash grid: text runs along lines, so 16 comparisons in each of 4 bands -> 64 bits
+	private static final int CHAT_W = 17;
+	private static final int CHAT_H = 4;
+	// pixels sampled per grid cell along each axis; plenty to average out text and noise
+	private static final int HASH_SAMPLES = 32;
+
+	private ProofImages()
+	{
+	}
+
+	static final class Encoded
+	{
+		final byte[] bytes;
+		final String contentType;
+		final String fileName;
+
+		Encoded(byte[] bytes, String contentType, String fileName)
+		{
+			this.bytes = bytes;
+			this.contentType = contentType;
+			this.fileName = fileName;
+		}
+	}
+
+	/**
+	 * Perceptual hash of a proof screenshot, with the game scene and the chat messages hashed
+	 * separately. The interface around them is the same in every screenshot. A hash of the whole
+	 * frame is mostly that interface, so two different proofs taken at the same spot come out only
+	 * a few bits apart.
+	 */
+	static final class Hash
+	{
+		final long scene;
+		// meaningless unless hasChat: the chatbox wasn't on screen
+		final long chat;
+		final boolean hasChat;
+
+		Hash(long scene, long chat, boolean hasChat)
+		{
+			this.scene = scene;
+			this.chat = hasChat ? chat : 0;
+			this.hasChat = hasChat;
+		}
+	}
+
+	/**
+	 * @param scene the game viewport in frame pixels, or null for the whole frame
+	 * @param chat the chat messages in frame pixels, or null when the chatbox is closed
+	 */
+	static Hash hash(BufferedImage frame, Rectangle scene, Rectangle chat)
+	{
+		return new Hash(dHash(frame, scene, SCENE_W, SCENE_H), chat == null ? 0 : dHash(frame, chat, CHAT_W, CHAT_H), chat != null);
+	}
+
+	static Encoded encode(BufferedImage frame, SnakesLaddersConfig.ProofFormat format, int maxWidth) throws IOException
+	{
+		boolean jpeg = format == SnakesLaddersConfig.ProofFormat.JPEG;
+		BufferedImage img = scale(frame, maxWidth, jpeg ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(img.getWidth() * img.getHeight() / 2);
+		if (jpeg)
+		{
+			writeJpeg(img, out);
+			return new Encoded(out.toByteArray(), "image/jpeg", "proof.jpg");
+		}
+
+		if (!ImageIO.write(img, "png", out)) throw new IOException("No PNG writer available");
+		return new Encoded(out.toByteArray(), "image/png", "proof.png");
+	}
+
+	/**
+	 * 64-bit difference hash of a grayscale gridW x gridH copy of {@code area}: each bit says
+	 * whether a cell is darker than its right-hand neighbour. Near-identical areas differ in a few
+	 * bits. Each cell is the mean of a sampled grid of its pixels rather than a resize, so a
+	 * full-size frame hashes in a millisecond or two.
+	 */
+	static long dHash(BufferedImage img, Rectangle area, int gridW, int gridH)
+	{
+		Rectangle r = new Rectangle(0, 0, img.getWidth(), img.getHeight());
+		if (area != null && !area.intersection(r).isEmpty()) r = area.intersection(r);
+
+		int w = r.width;
+		int h = r.height;
+		int stepX = Math.max(1, w / (gridW * HASH_SAMPLES));
+		int stepY = Math.max(1, h / (gridH * HASH_SAMPLES));
+
+		long[] sum = new long[gridW * gridH];
+		int[] count = new int[gridW * gridH];
+		int[] row = new int[w];
+		for (int y = 0; y < h; y += stepY)
+		{
+			img.getRGB(r.x, r.y + y, w, 1, row, 0, w);
+			int base = y * gridH / h * gridW;
+			for (int x = 0; x < w; x += stepX)
+			{
+				int rgb = row[x];
+				int cell = base + x * gridW / w;
+				sum[cell] += (77 * ((rgb >> 16) & 0xFF) + 150 * ((rgb >> 8) & 0xFF) + 29 * (rgb & 0xFF)) >> 8;
+				count[cell]++;
+			}
+		}
+
+		long hash = 0;
+		for (int cy = 0; cy < gridH; cy++)
+		{
+			for (int cx = 0; cx < gridW - 1; cx++)
+			{
+				int a = cy * gridW + cx;
+				// compare means without dividing: a/ca < b/cb
+				hash <<= 1;
+				if (sum[a] * count[a + 1] < sum[a + 1] * count[a]) hash |= 1;
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Scales down to maxWidth (keeping aspect) and/or converts to the target type.
+	 * Returns the source untouched when neither is needed.
+	 */
+	static BufferedImage scale(BufferedImage src, int maxWidth, int type)
+	{
+		int w = src.getWidth();
+		int h = src.getHeight();
+		if (maxWidth > 0 && w > maxWidth)
+		{
+			h = Math.max(1, (int) Math.round(h * (maxWidth / (double) w)));
+			w = maxWidth;
+		}
+
+		if (w == src.getWidth() && src.getType() == type) return src;
+
+		BufferedImage dst = new BufferedImage(w, h, type);
+		Graphics2D g = dst.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(src, 0, 0, w, h, null);
+		g.dispose();
+		return dst;
+	}
+
+	private static void writeJpeg(BufferedImage img, ByteArrayOutputStream out) throws IOException
+	{
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+		if (!writers.hasNext()) throw new IOException("No JPEG writer available");
+
+		ImageWriter writer = writers.next();
+		try (ImageOutputStream ios = ImageIO.createImageOutputStream(out))
+		{
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(JPEG_QUALITY);
+
+			writer.setOutput(ios);
+			writer.write(null, new IIOImage(img, null, null), param);
+		}
+		finally
+		{
+			writer.dispose();
+		}
+	}
+}
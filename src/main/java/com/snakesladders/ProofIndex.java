@@ -0,0 +1,164 @@
+package com.snakesladders;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Perceptual hashes ({@link ProofImages#hash}) of the screenshot proofs this client uploaded
+ * for one game, kept on disk so a resubmitted screenshot is caught across restarts.
+ *
+ * One line per proof: scene and chat hash in hex ("-" with the chatbox closed), tile, upload
+ * time. Loaded on first use, appended after each upload; an unreadable line is skipped. Lookups
+ * are a linear scan, which is nothing at the few hundred proofs a game produces. Background
+ * threads only.
+ */
+@Slf4j
+final class ProofIndex
+{
+	// bits out of 64; a few for an XP drop or a moving NPC, dozens for a different scene
+	static final int MAX_SCENE_DISTANCE = 5;
+	// the same messages hash alike; a new message scrolls every line and flips most bits
+	static final int MAX_CHAT_DISTANCE = 2;
+	// in place of the chat hash for a screenshot taken with the chatbox closed
+	private static final String NO_CHAT = "-";
+
+	static final class Match
+	{
+		final int tile;
+		final long timeMs;
+		final int distance;
+
+		Match(int tile, long timeMs, int distance)
+		{
+			this.tile = tile;
+			this.timeMs = timeMs;
+			this.distance = distance;
+		}
+	}
+
+	final String gameId;
+	private final File file;
+	private boolean loaded;
+	private int size;
+	private long[] scenes = new long[16];
+	private long[] chats = new long[16];
+	private boolean[] hasChat = new boolean[16];
+	private int[] tiles = new int[16];
+	private long[] times = new long[16];
+
+	ProofIndex(File dir, String gameId)
+	{
+		this.gameId = gameId == null ? "" : gameId;
+		// game ids are "game_xxx"; anything else is kept out of the path
+		this.file = new File(dir, "proofs-" + this.gameId.replaceAll("[^A-Za-z0-9_-]", "_") + ".txt");
+	}
+
+	/**
+	 * The closest earlier proof whose scene and chat are both within their distance, or null if
+	 * this one is new. When either screenshot has the chatbox closed only the scene is compared,
+	 * so closing the chat doesn't get a resubmission through. Distance is the bits that differ.
+	 */
+	synchronized Match findNear(ProofImages.Hash hash)
+	{
+		load();
+		int best = -1;
+		int bestDistance = Integer.MAX_VALUE;
+		for (int i = 0; i < size; i++)
+		{
+			int scene = Long.bitCount(scenes[i] ^ hash.scene);
+			int chat = hasChat[i] && hash.hasChat ? Long.bitCount(chats[i] ^ hash.chat) : 0;
+			if (scene > MAX_SCENE_DISTANCE || chat > MAX_CHAT_DISTANCE) continue;
+
+			int d = scene + chat;
+			if (d < bestDistance)
+			{
+				best = i;
+				bestDistance = d;
+			}
+		}
+		return best < 0 ? null : new Match(tiles[best], times[best], bestDistance);
+	}
+
+	synchronized void add(ProofImages.Hash hash, int tile)
+	{
+		load();
+		long now = System.currentTimeMillis();
+		append(hash, tile, now);
+
+		File dir = file.getParentFile();
+		if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+		{
+			log.warn("Cannot create {}", dir);
+			return;
+		}
+		try (Writer out = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8))
+		{
+			String chat = hash.hasChat ? Long.toHexString(hash.chat) : NO_CHAT;
+			out.write(Long.toHexString(hash.scene) + " " + chat + " " + tile + " " + now + "\n");
+		}
+		catch (IOException ex)
+		{
+			log.warn("Cannot save proof hash to {}: {}", file, ex.getMessage());
+		}
+	}
+
+	private void load()
+	{
+		if (loaded) return;
+		loaded = true;
+		if (!file.isFile()) return;
+
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)))
+		{
+			String line;
+			while ((line = in.readLine()) != null)
+			{
+				String[] parts = line.trim().split(" ");
+				if (parts.length < 4) continue;
+				try
+				{
+					boolean chat = !NO_CHAT.equals(parts[1]);
+					ProofImages.Hash hash = new ProofImages.Hash(Long.parseUnsignedLong(parts[0], 16),
+						chat ? Long.parseUnsignedLong(parts[1], 16) : 0, chat);
+					append(hash, Integer.parseInt(parts[2]), Long.parseLong(parts[3]));
+				}
+				catch (NumberFormatException ex)
+				{
+					// half-written line from a crash
+				}
+			}
+		}
+		catch (IOException ex)
+		{
+			log.warn("Cannot read proof hashes from {}: {}", file, ex.getMessage());
+		}
+	}
+
+	private void append(ProofImages.Hash hash, int tile, long timeMs)
+	{
+		if (size == scenes.length)
+		{
+			scenes = Arrays.copyOf(scenes, size * 2);
+			chats = Arrays.copyOf(chats, size * 2);
+			hasChat = Arrays.copyOf(hasChat, size * 2);
+			tiles = Arrays.copyOf(tiles, size * 2);
+			times = Arrays.copyOf(times, size * 2);
+		}
+		scenes[size] = hash.scene;
+		chats[size] = hash.chat;
+		hasChat[size] = hash.hasChat;
+		tiles[size] = tile;
+		times[size] = timeMs;
+		size++;
+	}
+}
@@ -0,0 +1,121 @@
+package com.snakesladders;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The queue between the threads that produce log records and the file they end up in.
+ *
+ * Callers {@link #offer} into a bounded queue and never block; when it's full the record is
+ * dropped and counted. One drain job at a time runs on the scheduler's writer thread, writes
+ * everything queued and flushes, so the sink is only ever called from that thread.
+ * {@link #close} writes what's left and then closes the sink there too.
+ */
+@Slf4j
+final class QueuedWriter<T>
+{
+	interface Sink<T>
+	{
+		void write(T record) throws IOException;
+
+		/** The queue is empty for now. */
+		void flush() throws IOException;
+
+		void close();
+	}
+
+	private final SnakesScheduler scheduler;
+	private final String name;
+	private final Sink<T> sink;
+	private final BlockingQueue<T> queue;
+	private final AtomicLong dropped = new AtomicLong();
+	// set while a drain job is queued or running; stays set once the sink is closed
+	private final AtomicBoolean draining = new AtomicBoolean();
+	private volatile boolean closed;
+
+	QueuedWriter(SnakesScheduler scheduler, String name, int capacity, Sink<T> sink)
+	{
+		this.scheduler = scheduler;
+		this.name = name;
+		this.sink = sink;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+	}
+
+	/**
+	 * Never blocks; returns false (and counts a drop) when the writer is behind or closed.
+	 */
+	boolean offer(T record)
+	{
+		if (closed || !queue.offer(record))
+		{
+			dropped.incrementAndGet();
+			return false;
+		}
+		drainSoon();
+		return true;
+	}
+
+	long getDropped()
+	{
+		return dropped.get();
+	}
+
+	/**
+	 * Closes the sink once what's already queued is written.
+	 */
+	void close()
+	{
+		closed = true;
+		drainSoon();
+	}
+
+	private void drainSoon()
+	{
+		if (!draining.compareAndSet(false, true)) return;
+		try
+		{
+			scheduler.write(this::drain);
+		}
+		catch (RejectedExecutionException ex)
+		{
+			// the scheduler is gone, so nothing will write these; no drain is running either
+			closed = true;
+			dropped.addAndGet(queue.size());
+			queue.clear();
+			sink.close();
+		}
+	}
+
+	private void drain()
+	{
+		try
+		{
+			T record;
+			while ((record = queue.poll()) != null) sink.write(record);
+			sink.flush();
+		}
+		catch (IOException ex)
+		{
+			log.warn("{} stopped: {}", name, ex.getMessage());
+			closed = true;
+		}
+
+		if (closed)
+		{
+			// an offer that raced close() may have got in after the loop
+			dropped.addAndGet(queue.size());
+			queue.clear();
+			sink.close();
+			return;
+		}
+		draining.set(false);
+		// offers and close() that found this drain running left their work to it
+		if (closed || !queue.isEmpty()) drainSoon();
+	}
+}
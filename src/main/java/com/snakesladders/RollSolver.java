@@ -0,0 +1,120 @@
+package com.snakesladders;
+
+/**
+ * Exact expected rolls to finish from every tile, treating the board as an absorbing Markov
+ * chain (one d6 roll per turn, snakes and ladders, bounce-back overshoot).
+ *
+ * Each tile has at most six successors, so the system is solved by Gauss-Seidel sweeps over
+ * a flat successor table rather than by inverting a dense matrix; a few-hundred-tile board takes
+ * well under a millisecond. Solve once per board revision and read the result in O(1).
+ */
+final class RollSolver
+{
+	private static final double TOLERANCE = 1e-10;
+	private static final int MAX_SWEEPS = 100_000;
+
+	static final class Solution
+	{
+		final int size;
+		// expected rolls from standing on tile t to reaching the last tile; infinite if it may never finish
+		private final double[] rolls;
+
+		Solution(int size, double[] rolls)
+		{
+			this.size = size;
+			this.rolls = rolls;
+		}
+
+		double expectedRolls(int tile)
+		{
+			if (tile < 0 || tile > size) return Double.NaN;
+			return rolls[tile];
+		}
+	}
+
+	private RollSolver()
+	{
+	}
+
+	static Solution solve(BoardMoves board)
+	{
+		int size = board.size;
+		int die = BoardMoves.DIE;
+		int[] next = new int[size * die];
+		for (int t = 0; t < size; t++)
+		{
+			for (int r = 0; r < die; r++) next[t * die + r] = board.move(t, r + 1);
+		}
+
+		return new Solution(size, expectedRolls(next, size, stuck(next, size)));
+	}
+
+	/**
+	 * Tiles from which the last tile might never be reached (a snake/bounce cycle with no way
+	 * out, or a path into one). Their expected roll count is infinite.
+	 */
+	private static boolean[] stuck(int[] next, int size)
+	{
+		int die = BoardMoves.DIE;
+		boolean[] canFinish = new boolean[size + 1];
+		canFinish[size] = true;
+		for (boolean changed = true; changed; )
+		{
+			changed = false;
+			for (int t = size - 1; t >= 0; t--)
+			{
+				if (canFinish[t]) continue;
+				for (int r = 0; r < die && !canFinish[t]; r++) canFinish[t] = canFinish[next[t * die + r]];
+				changed |= canFinish[t];
+			}
+		}
+
+		boolean[] stuck = new boolean[size + 1];
+		for (int t = 0; t < size; t++) stuck[t] = !canFinish[t];
+		for (boolean changed = true; changed; )
+		{
+			changed = false;
+			for (int t = 0; t < size; t++)
+			{
+				if (stuck[t]) continue;
+				for (int r = 0; r < die && !stuck[t]; r++) stuck[t] = stuck[next[t * die + r]];
+				changed |= stuck[t];
+			}
+		}
+		return stuck;
+	}
+
+	/**
+	 * E[t] = 1 + mean(E[next]) with E[last] = 0. Sweeping from the end backwards follows the
+	 * direction most moves go, so boards without long snakes converge in a handful of sweeps.
+	 */
+	private static double[] expectedRolls(int[] next, int size, boolean[] stuck)
+	{
+		int die = BoardMoves.DIE;
+		double[] e = new double[size + 1];
+		for (int t = 0; t < size; t++) if (stuck[t]) e[t] = Double.POSITIVE_INFINITY;
+
+		for (int sweep = 0; sweep < MAX_SWEEPS; sweep++)
+		{
+			double delta = 0;
+			for (int t = size - 1; t >= 0; t--)
+			{
+				if (stuck[t]) continue;
+				double sum = 0;
+				int self = 0;
+				for (int r = 0; r < die; r++)
+				{
+					int n = next[t * die + r];
+					if (n == t) self++;
+					else sum += e[n];
+				}
+				// a roll that bounces straight back is solved for exactly rather than iterated
+				double v = (die + sum) / (die - self);
+				delta = Math.max(delta, Math.abs(v - e[t]) / Math.max(1, v));
+				e[t] = v;
+			}
+			if (delta < TOLERANCE) break;
+		}
+		return e;
+	}
+}
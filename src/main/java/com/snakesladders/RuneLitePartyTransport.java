@@ -0,0 +1,37 @@
+package com.snakesladders;
+
+import net.runelite.client.party.PartyMember;
+import net.runelite.client.party.PartyService;
+
+/**
+ * {@link PartySync.Transport} over RuneLite's party websocket. Incoming messages arrive as
+ * {@link SnakesPartyMessage} events on the event bus.
+ */
+final class RuneLitePartyTransport implements PartySync.Transport
+{
+	private final PartyService party;
+
+	RuneLitePartyTransport(PartyService party)
+	{
+		this.party = party;
+	}
+
+	@Override
+	public boolean isInParty()
+	{
+		return party.isInParty();
+	}
+
+	@Override
+	public long localMemberId()
+	{
+		PartyMember m = party.getLocalMember();
+		return m == null ? -1 : m.getMemberId();
+	}
+
+	@Override
+	public void send(SnakesPartyMessage message)
+	{
+		party.send(message);
+	}
+}
@@ -0,0 +1,317 @@
+package com.snakesladders;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Response cache shared by every RuneLite client on the machine, so alts on the same game make
+ * one request per poll interval between them instead of one each.
+ *
+ * A small memory-mapped file holds fixed-size slots addressed by a hash of the request key. Each
+ * slot is a seqlock: the writer bumps the sequence to odd, writes, then bumps it to even, and
+ * readers retry (or give up) if it moved under them. Only the process holding the slot's file lock
+ * fetches; the rest read the mapping, and never wait for the lock.
+ */
+@Slf4j
+final class SharedCache
+{
+	static final String FILE_NAME = "shared-cache.bin";
+
+	private static final int MAGIC = 0x534E4B31; // "SNK1"
+	private static final int HEADER = 64;
+	private static final int SLOTS = 16;
+	private static final int SLOT_SIZE = 128 * 1024;
+
+	// slot layout
+	private static final int SEQ = 0;
+	private static final int KEY = 8;
+	private static final int FETCHED_AT = 16;
+	private static final int FRESH_UNTIL = 24;
+	private static final int STATUS = 32;
+	private static final int ETAG_LEN = 36;
+	private static final int BODY_LEN = 40;
+	private static final int DATA = 48;
+	private static final int MAX_DATA = SLOT_SIZE - DATA;
+
+	private static final int READ_ATTEMPTS = 4;
+
+	private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+	interface Fetch
+	{
+		SnakesApi.ApiResult fetch(String ifNoneMatch) throws IOException, InterruptedException;
+	}
+
+	/**
+	 * What a slot held at one consistent instant. {@code body} is only read when the caller needs it.
+	 */
+	private static final class Entry
+	{
+		int status;
+		long freshUntilMs;
+		String etag;
+		String body;
+	}
+
+	private final File file;
+	private FileChannel channel;
+	private MappedByteBuffer map;
+	private boolean failed;
+
+	SharedCache(File file)
+	{
+		this.file = file;
+	}
+
+	/**
+	 * Answers from the shared slot while it's fresh; otherwise fetches (conditionally, against the
+	 * slot's ETag) if no other process is already doing so.
+	 *
+	 * @param callerEtag the caller's own If-None-Match; a cached entry with the same ETag comes back as a 304
+	 * @param freshMs    how long a response stays fresh, given its server delay hint in seconds
+	 */
+	SnakesApi.ApiResult get(String key, String callerEtag, Fetch fetch, LongUnaryOperator freshMs)
+		throws IOException, InterruptedException
+	{
+		MappedByteBuffer m = map();
+		FileChannel ch = channel;
+		if (m == null || ch == null) return fetch.fetch(callerEtag);
+
+		int slot = slotFor(key);
+		long keyHash = hash(key);
+		long now = System.currentTimeMillis();
+
+		Entry cached = read(m, slot, keyHash, callerEtag);
+		if (cached != null && now < cached.freshUntilMs) return answer(cached, callerEtag, now);
+
+		long base = base(slot);
+		FileLock lock;
+		try
+		{
+			lock = ch.tryLock(base, SLOT_SIZE, false);
+		}
+		catch (OverlappingFileLockException ex)
+		{
+			lock = null;
+		}
+
+		if (lock == null)
+		{
+			// another client is fetching this right now; serve what's there rather than wait
+			return cached != null ? answer(cached, callerEtag, now) : fetch.fetch(callerEtag);
+		}
+
+		try
+		{
+			// it may have been refreshed while we were checking
+			cached = read(m, slot, keyHash, callerEtag);
+			if (cached != null && now < cached.freshUntilMs) return answer(cached, callerEtag, now);
+
+			SnakesApi.ApiResult res = fetch.fetch(cached != null ? cached.etag : callerEtag);
+			long freshUntil = System.currentTimeMillis() + freshMs.applyAsLong(res.serverDelaySeconds);
+
+			if (res.isNotModified() || res.isThrottled())
+			{
+				if (cached == null) return res;
+				touch(m, slot, freshUntil);
+				cached.freshUntilMs = freshUntil;
+				return res.isThrottled() ? res : answer(cached, callerEtag, now);
+			}
+
+			if (res.isOk() && res.body != null) write(m, slot, keyHash, res, freshUntil);
+			return res;
+		}
+		finally
+		{
+			lock.release();
+		}
+	}
+
+	/**
+	 * Size of the mapping, or 0 before the first request. Off-heap, but still the client's memory.
+	 */
+	synchronized long mappedBytes()
+	{
+		return map == null ? 0 : map.capacity();
+	}
+
+	synchronized void close()
+	{
+		try
+		{
+			if (channel != null) channel.close();
+		}
+		catch (IOException ex)
+		{
+			log.debug("Shared cache close failed", ex);
+		}
+		channel = null;
+		map = null;
+	}
+
+	private synchronized MappedByteBuffer map()
+	{
+		if (map != null || failed) return map;
+
+		try
+		{
+			File dir = file.getParentFile();
+			if (dir != null && !dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+
+			long size = HEADER + (long) SLOTS * SLOT_SIZE;
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try (FileLock ignored = channel.lock(0, HEADER, false))
+			{
+				MappedByteBuffer m = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+				if (m.getInt(0) != MAGIC || m.getInt(4) != SLOTS || m.getInt(8) != SLOT_SIZE)
+				{
+					// new file, or a different layout: start empty
+					for (int i = 0; i < SLOTS; i++) m.putLong(base(i) + SEQ, 0).putLong(base(i) + KEY, 0);
+					m.putInt(4, SLOTS).putInt(8, SLOT_SIZE).putInt(0, MAGIC);
+				}
+				map = m;
+			}
+			return map;
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			log.warn("Shared cache unavailable, polling directly: {}", ex.toString());
+			failed = true;
+			close();
+			return null;
+		}
+	}
+
+	/**
+	 * Consistent read of a slot's header and ETag, or null if the slot holds another key or a
+	 * writer kept it busy. The body is only copied when it differs from what the caller has.
+	 */
+	private static Entry read(MappedByteBuffer map, int slot, long keyHash, String callerEtag)
+	{
+		ByteBuffer buf = map.duplicate();
+		int base = base(slot);
+		for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++)
+		{
+			long seq = (long) LONGS.getAcquire(buf, base + SEQ);
+			if ((seq & 1) != 0) continue;
+			if (seq == 0 || buf.getLong(base + KEY) != keyHash) return null;
+
+			Entry e = new Entry();
+			e.freshUntilMs = buf.getLong(base + FRESH_UNTIL);
+			e.status = buf.getInt(base + STATUS);
+			int etagLen = buf.getInt(base + ETAG_LEN);
+			int bodyLen = buf.getInt(base + BODY_LEN);
+			if (etagLen < 0 || bodyLen < 0 || etagLen + bodyLen > MAX_DATA) continue;
+
+			e.etag = etagLen == 0 ? null : string(buf, base + DATA, etagLen);
+			if (e.etag == null || !e.etag.equals(callerEtag))
+			{
+				e.body = string(buf, base + DATA + etagLen, bodyLen);
+			}
+
+			VarHandle.acquireFence();
+			if ((long) LONGS.getAcquire(buf, base + SEQ) == seq) return e;
+		}
+		return null;
+	}
+
+	private static void write(MappedByteBuffer map, int slot, long keyHash, SnakesApi.ApiResult res, long freshUntil)
+	{
+		byte[] etag = res.etag == null ? new byte[0] : res.etag.getBytes(StandardCharsets.UTF_8);
+		byte[] body = res.body.getBytes(StandardCharsets.UTF_8);
+		if (etag.length + body.length > MAX_DATA) return;
+
+		ByteBuffer buf = map.duplicate();
+		int base = base(slot);
+		long seq = beginWrite(buf, base);
+
+		buf.putLong(base + KEY, keyHash);
+		buf.putLong(base + FETCHED_AT, System.currentTimeMillis());
+		buf.putLong(base + FRESH_UNTIL, freshUntil);
+		buf.putInt(base + STATUS, res.statusCode);
+		buf.putInt(base + ETAG_LEN, etag.length);
+		buf.putInt(base + BODY_LEN, body.length);
+		buf.position(base + DATA);
+		buf.put(etag);
+		buf.put(body);
+
+		LONGS.setRelease(buf, base + SEQ, seq + 1);
+	}
+
+	private static void touch(MappedByteBuffer map, int slot, long freshUntil)
+	{
+		ByteBuffer buf = map.duplicate();
+		int base = base(slot);
+		long seq = beginWrite(buf, base);
+		buf.putLong(base + FRESH_UNTIL, freshUntil);
+		LONGS.setRelease(buf, base + SEQ, seq + 1);
+	}
+
+	/**
+	 * Marks the slot as being written (odd sequence). An odd value left by a writer that died
+	 * mid-write is reused, since we hold the slot lock.
+	 */
+	private static long beginWrite(ByteBuffer buf, int base)
+	{
+		long seq = (long) LONGS.getAcquire(buf, base + SEQ);
+		if ((seq & 1) == 0) seq++;
+		LONGS.setRelease(buf, base + SEQ, seq);
+		VarHandle.releaseFence();
+		return seq;
+	}
+
+	private static SnakesApi.ApiResult answer(Entry e, String callerEtag, long now)
+	{
+		long remaining = Math.max(0, (e.freshUntilMs - now + 999) / 1000);
+		if (e.etag != null && e.etag.equals(callerEtag))
+		{
+			return new SnakesApi.ApiResult(304, null, e.etag, remaining);
+		}
+		return new SnakesApi.ApiResult(e.status, e.body, e.etag, remaining);
+	}
+
+	private static String string(ByteBuffer buf, int offset, int len)
+	{
+		byte[] b = new byte[len];
+		buf.position(offset);
+		buf.get(b);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	private static int base(int slot)
+	{
+		return HEADER + slot * SLOT_SIZE;
+	}
+
+	private static int slotFor(String key)
+	{
+		return (int) ((hash(key) >>> 1) % SLOTS);
+	}
+
+	/**
+	 * 64-bit FNV-1a; never 0, which marks an empty slot.
+	 */
+	private static long hash(String key)
+	{
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < key.length(); i++)
+		{
+			h ^= key.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return h == 0 ? 1 : h;
+	}
+}
@@ -1,28 +1,39 @@
 package com.snakesladders;
 
-import java.io.IOException;
-import java.net.URI;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Shared HTTP plumbing for {@link SnakesApiClient}.
+ * Endpoint calls live on the client instance; this only holds the result type and encoding helpers.
+ */
 public class SnakesApi
 {
-	private static final HttpClient HTTP = HttpClient.newBuilder().build();
-
 	public static final class ApiResult
 	{
 		public final int statusCode;
 		public final String body;     // null when 304, or when no body
 		public final String etag;     // may be null
+		public final long serverDelaySeconds; // -1 when the server sent no polling hint
 
 		public ApiResult(int statusCode, String body, String etag)
+		{
+			this(statusCode, body, etag, -1);
+		}
+
+		public ApiResult(int statusCode, String body, String etag, long serverDelaySeconds)
 		{
 			this.statusCode = statusCode;
 			this.body = body;
 			this.etag = etag;
+			this.serverDelaySeconds = serverDelaySeconds;
 		}
 
 		public boolean isNotModified()
@@ -34,9 +45,22 @@ public class SnakesApi
 		{
 			return statusCode >= 200 && statusCode < 300;
 		}
+
+		/** 429 / 503: the server wants us to back off, body is not usable. */
+		public boolean isThrottled()
+		{
+			return statusCode == 429 || statusCode == 503;
+		}
 	}
 
-	private static String normalizeBaseUrl(String baseUrl)
+	/** Custom header the backend can use to set the poll rate directly (seconds). */
+	static final String POLL_INTERVAL_HEADER = "x-poll-interval";
+
+	private SnakesApi()
+	{
+	}
+
+	static String normalizeBaseUrl(String baseUrl)
 	{
 		if (baseUrl == null) return "";
 		String s = baseUrl.trim();
@@ -44,22 +68,86 @@ public class SnakesApi
 		return s;
 	}
 
-	private static HttpRequest.Builder maybeWebhook(HttpRequest.Builder b, String webhookUrl)
+	static String firstHeader(HttpResponse<?> res, String name)
+	{
+		return res.headers().firstValue(name).orElse(null);
+	}
+
+	static ApiResult result(HttpResponse<String> res, String body)
+	{
+		return new ApiResult(res.statusCode(), body, firstHeader(res, "etag"), serverDelaySeconds(res));
+	}
+
+	/**
+	 * Polling hint from the response headers, in seconds, or -1 when there is none.
+	 *
+	 * Retry-After wins on 429/503. Otherwise the longer of x-poll-interval and
+	 * Cache-Control max-age, since polling a still-fresh response is wasted work.
+	 */
+	static long serverDelaySeconds(HttpResponse<?> res)
+	{
+		int code = res.statusCode();
+		if (code == 429 || code == 503)
+		{
+			long retry = parseRetryAfter(firstHeader(res, "retry-after"));
+			if (retry >= 0) return retry;
+		}
+
+		long interval = parseSeconds(firstHeader(res, POLL_INTERVAL_HEADER));
+		long maxAge = parseMaxAge(firstHeader(res, "cache-control"));
+		return Math.max(interval, maxAge);
+	}
+
+	static long parseMaxAge(String cacheControl)
 	{
-		if (webhookUrl != null && !webhookUrl.trim().isEmpty())
+		if (cacheControl == null) return -1;
+		for (String directive : cacheControl.split(","))
 		{
-			b.header("x-discord-webhook-url", webhookUrl.trim());
+			String d = directive.trim();
+			if (d.regionMatches(true, 0, "max-age=", 0, 8))
+			{
+				return parseSeconds(d.substring(8));
+			}
 		}
-		return b;
+		return -1;
 	}
 
-	private static String firstHeader(HttpResponse<?> res, String name)
+	/** Retry-After is either delta-seconds or an HTTP-date. */
+	static long parseRetryAfter(String value)
 	{
-		return res.headers().firstValue(name).orElse(null);
+		if (value == null || value.trim().isEmpty()) return -1;
+		long seconds = parseSeconds(value);
+		if (seconds >= 0) return seconds;
+
+		try
+		{
+			Instant at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+			return Math.max(0, Duration.between(Instant.now(), at).getSeconds());
+		}
+		catch (Exception ignored)
+		{
+			return -1;
+		}
+	}
+
+	static long parseSeconds(String value)
+	{
+		if (value == null) return -1;
+		String s = value.trim();
+		if (s.startsWith("\"")) s = s.replace("\"", "");
+		try
+		{
+			long v = Long.parseLong(s);
+			return v < 0 ? -1 : v;
+		}
+		catch (NumberFormatException ignored)
+		{
+			return -1;
+		}
 	}
 
 	/** Encode a value for query string usage (e.g. rsn, join code, etc). */
-	private static String encQ(String s)
+	static String encQ(String s)
 	{
 		if (s == null) return "";
 		return URLEncoder.encode(s.trim(), StandardCharsets.UTF_8);
@@ -69,7 +157,7 @@ public class SnakesApi
 	 * Encode a value used in a URL path segment (e.g. /games/{id}/...).
 	 * We keep it conservative: encode anything that could break path parsing.
 	 */
-	private static String encPath(String s)
+	static String encPath(String s)
 	{
 		if (s == null) return "";
 		// URLEncoder is for query strings. For path segments, do a safe minimal encoding.
@@ -87,152 +175,26 @@ public class SnakesApi
 	}
 
 	/**
-	 * Lightweight poll endpoint for the RuneLite InfoBox overlay.
-	 *
-	 * Backend should support:
-	 * - ETag response header (based on revision)
-	 * - If-None-Match request header
-	 * - 304 Not Modified when unchanged
-	 *
-	 * GET /games/:id/overlay?rsn=...
+	 * Stable id for "this team in this game" that can be shared (party, other local clients)
+	 * without giving away the team token: first 64 bits of SHA-256, hex.
 	 */
-	public static ApiResult getOverlay(String baseUrl, String gameId, String rsn, String ifNoneMatchEtag)
-		throws IOException, InterruptedException
+	static String teamKey(String gameId, String jwtToken)
 	{
-		String url = normalizeBaseUrl(baseUrl)
-			+ "/games/" + encPath(gameId)
-			+ "/overlay?rsn=" + encQ(rsn);
-
-		HttpRequest.Builder b = HttpRequest.newBuilder()
-			.uri(URI.create(url))
-			.GET()
-			.header("accept", "application/json");
-
-		if (ifNoneMatchEtag != null && !ifNoneMatchEtag.trim().isEmpty())
+		try
 		{
-			b.header("if-none-match", ifNoneMatchEtag.trim());
+			byte[] hash = MessageDigest.getInstance("SHA-256")
+				.digest((gameId + "\n" + jwtToken).getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder(16);
+			for (int i = 0; i < 8; i++) sb.append(String.format("%02x", hash[i]));
+			return sb.toString();
 		}
-
-		HttpResponse<String> res = HTTP.send(b.build(), HttpResponse.BodyHandlers.ofString());
-
-		// 304 is expected and should not throw
-		if (res.statusCode() == 304)
+		catch (NoSuchAlgorithmException ex)
 		{
-			return new ApiResult(304, null, firstHeader(res, "etag"));
+			return null;
 		}
-
-		if (res.statusCode() >= 400)
-		{
-			throw new IOException("Overlay HTTP " + res.statusCode() + ": " + res.body());
-		}
-
-		return new ApiResult(res.statusCode(), res.body(), firstHeader(res, "etag"));
-	}
-
-	public static String getGameState(String baseUrl, String gameId) throws IOException, InterruptedException
-	{
-		String url = normalizeBaseUrl(baseUrl) + "/games/" + encPath(gameId) + "/state";
-		HttpRequest req = HttpRequest.newBuilder()
-			.uri(URI.create(url))
-			.GET()
-			.header("accept", "application/json")
-			.build();
-
-		HttpResponse<String> res = HTTP.send(req, HttpResponse.BodyHandlers.ofString());
-		if (res.statusCode() >= 400) throw new IOException("State HTTP " + res.statusCode() + ": " + res.body());
-		return res.body();
-	}
-
-	/**
-	 * NOTE: Plugin no longer needs to create games (website does it),
-	 * but leaving it here is harmless.
-	 */
-	public static String createGame(String baseUrl, String webhookUrl, String clanName, String hostPassword, int boardSize, String boardUrl)
-		throws IOException, InterruptedException
-	{
-		String url = normalizeBaseUrl(baseUrl) + "/games";
-
-		String body =
-			"{\"clanName\":\"" + escape(clanName) + "\"," +
-			"\"hostPassword\":\"" + escape(hostPassword) + "\"," +
-			"\"boardSize\":" + boardSize + "," +
-			"\"boardUrl\":\"" + escape(boardUrl) + "\"}";
-
-		HttpRequest.Builder b = HttpRequest.newBuilder()
-			.uri(URI.create(url))
-			.POST(HttpRequest.BodyPublishers.ofString(body))
-			.header("content-type", "application/json")
-			.header("accept", "application/json");
-
-		maybeWebhook(b, webhookUrl);
-
-		HttpResponse<String> res = HTTP.send(b.build(), HttpResponse.BodyHandlers.ofString());
-		if (res.statusCode() >= 400) throw new IOException("Create HTTP " + res.statusCode() + ": " + res.body());
-		return res.body();
-	}
-
-	public static String register(String baseUrl, String gameId, String webhookUrl, String teamName, String teamPassword, String rsn)
-		throws IOException, InterruptedException
-	{
-		String url = normalizeBaseUrl(baseUrl) + "/games/" + encPath(gameId) + "/register";
-
-		String body = "{\"teamName\":\"" + escape(teamName) + "\"," +
-			"\"teamPassword\":\"" + escape(teamPassword) + "\"," +
-			"\"rsn\":\"" + escape(rsn) + "\"}";
-
-		HttpRequest.Builder b = HttpRequest.newBuilder()
-			.uri(URI.create(url))
-			.POST(HttpRequest.BodyPublishers.ofString(body))
-			.header("content-type", "application/json")
-			.header("accept", "application/json");
-
-		maybeWebhook(b, webhookUrl);
-
-		HttpResponse<String> res = HTTP.send(b.build(), HttpResponse.BodyHandlers.ofString());
-		if (res.statusCode() >= 400) throw new IOException("Register HTTP " + res.statusCode() + ": " + res.body());
-		return res.body();
-	}
-
-	public static String roll(String baseUrl, String gameId, String webhookUrl, String jwtToken) throws IOException, InterruptedException
-	{
-		String url = normalizeBaseUrl(baseUrl) + "/games/" + encPath(gameId) + "/roll";
-
-		HttpRequest.Builder b = HttpRequest.newBuilder()
-			.uri(URI.create(url))
-			.POST(HttpRequest.BodyPublishers.ofString("{}"))
-			.header("content-type", "application/json")
-			.header("accept", "application/json")
-			.header("authorization", "Bearer " + (jwtToken == null ? "" : jwtToken.trim()));
-
-		maybeWebhook(b, webhookUrl);
-
-		HttpResponse<String> res = HTTP.send(b.build(), HttpResponse.BodyHandlers.ofString());
-		if (res.statusCode() >= 400) throw new IOException("Roll HTTP " + res.statusCode() + ": " + res.body());
-		return res.body();
-	}
-
-	public static String submitProof(String baseUrl, String gameId, String webhookUrl, String jwtToken, String urlToProof)
-		throws IOException, InterruptedException
-	{
-		String url = normalizeBaseUrl(baseUrl) + "/games/" + encPath(gameId) + "/proof";
-
-		String body = "{\"url\":\"" + escape(urlToProof) + "\"}";
-
-		HttpRequest.Builder b = HttpRequest.newBuilder()
-			.uri(URI.create(url))
-			.POST(HttpRequest.BodyPublishers.ofString(body))
-			.header("content-type", "application/json")
-			.header("accept", "application/json")
-			.header("authorization", "Bearer " + (jwtToken == null ? "" : jwtToken.trim()));
-
-		maybeWebhook(b, webhookUrl);
-
-		HttpResponse<String> res = HTTP.send(b.build(), HttpResponse.BodyHandlers.ofString());
-		if (res.statusCode() >= 400) throw new IOException("Proof HTTP " + res.statusCode() + ": " + res.body());
-		return res.body();
 	}
 
-	private static String escape(String s)
+	static String escape(String s)
 	{
 		if (s == null) return "";
 		return s.replace("\\", "\\\\").replace("\"", "\\\"");
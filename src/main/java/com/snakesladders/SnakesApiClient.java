@@ -0,0 +1,565 @@
+package com.snakesladders;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import static com.snakesladders.SnakesApi.encPath;
+import static com.snakesladders.SnakesApi.encQ;
+import static com.snakesladders.SnakesApi.escape;
+import static com.snakesladders.SnakesApi.normalizeBaseUrl;
+import static com.snakesladders.SnakesApi.result;
+
+/**
+ * Backend client bound to an immutable snapshot of {@link SnakesLaddersConfig}.
+ *
+ * All endpoint URIs and request templates are built once in {@link #fromConfig}; the plugin
+ * swaps in a fresh instance when the "snakesladders" config group changes instead of
+ * re-reading the config proxy on every request.
+ */
+public final class SnakesApiClient
+{
+	/** Poll interval used when the server sends no hint. */
+	static final long DEFAULT_POLL_MS = 5_000;
+
+	/**
+	 * Idle time after which the connection to the API host is re-warmed. Below the usual 60s
+	 * idle timeout of load balancers in front of the backend.
+	 */
+	static final long KEEP_WARM_MS = 45_000;
+
+	private final String baseUrl;
+	private final String gameId;
+	private final String jwtToken;
+	private final String webhookUrl;
+	private final long minPollMs;
+	private final long maxPollMs;
+
+	// owns the HTTP client, so it goes away with the plugin
+	private final SnakesScheduler scheduler;
+	// null unless sharing responses with other local clients is enabled
+	private final SharedCache sharedCache;
+	// null unless the HTTP trace is enabled; secrets are redacted from whatever it writes
+	private final HttpTrace trace;
+	private final String[] secrets;
+	// null unless recording overlay traffic
+	private final TrafficLog recorder;
+	// non-null when serving a recording instead of the network
+	private final TrafficLog.Replay replay;
+	private final int replaySpeed;
+
+	// null when the base URL / game id can't form a valid URI
+	private final URI gamesUri;
+	private final URI stateUri;
+	private final URI boardUri;
+	private final URI registerUri;
+	private final URI rollUri;
+	private final URI proofUri;
+	private final URI proofUploadUri;
+	private final String overlayPrefix;
+
+	private final HttpRequest stateRequest;
+	private final HttpRequest rollRequest;
+
+	// overlay URL depends on the logged-in RSN; rebuilt only when that changes
+	private volatile OverlayEndpoint overlay;
+	// nanoTime of the last completed exchange with the API host; 0 = none yet
+	private volatile long lastExchangeNs;
+
+	private SnakesApiClient(String baseUrl, String gameId, String jwtToken, String webhookUrl, int minPollSeconds, int maxPollSeconds,
+		SnakesScheduler scheduler, SharedCache sharedCache, HttpTrace trace, TrafficLog recorder, TrafficLog.Replay replay, int replaySpeed)
+	{
+		this.baseUrl = normalizeBaseUrl(baseUrl);
+		this.gameId = gameId == null ? "" : gameId.trim();
+		this.jwtToken = jwtToken == null ? "" : jwtToken.trim();
+		this.webhookUrl = webhookUrl == null ? "" : webhookUrl.trim();
+		this.minPollMs = Math.max(1, minPollSeconds) * 1000L;
+		this.maxPollMs = Math.max(this.minPollMs, maxPollSeconds * 1000L);
+		this.scheduler = scheduler;
+		this.sharedCache = sharedCache;
+		this.trace = trace;
+		this.secrets = new String[] {this.jwtToken, this.webhookUrl};
+		this.recorder = recorder;
+		this.replay = replay;
+		this.replaySpeed = Math.max(1, replaySpeed);
+
+		String gameBase = this.baseUrl + "/games/" + encPath(this.gameId);
+
+		gamesUri = uri(this.baseUrl + "/games");
+		stateUri = hasGameId() ? uri(gameBase + "/state") : null;
+		boardUri = hasGameId() ? uri(gameBase + "/board") : null;
+		registerUri = hasGameId() ? uri(gameBase + "/register") : null;
+		rollUri = hasGameId() ? uri(gameBase + "/roll") : null;
+		proofUri = hasGameId() ? uri(gameBase + "/proof") : null;
+		proofUploadUri = hasGameId() ? uri(gameBase + "/proof/upload") : null;
+		overlayPrefix = gameBase + "/overlay?rsn=";
+
+		stateRequest = stateUri == null ? null : HttpRequest.newBuilder(stateUri)
+			.GET()
+			.header("accept", "application/json")
+			.build();
+
+		rollRequest = rollUri == null ? null : authed(jsonPost(rollUri, "{}")).build();
+	}
+
+	public static SnakesApiClient fromConfig(SnakesLaddersConfig config, SnakesScheduler scheduler, SharedCache sharedCache, HttpTrace trace,
+		TrafficLog recorder)
+	{
+		return new SnakesApiClient(
+			config.apiBaseUrl(),
+			config.gameId(),
+			config.jwtToken(),
+			config.discordWebhookUrl(),
+			config.pollMinSeconds(),
+			config.pollMaxSeconds(),
+			scheduler,
+			sharedCache,
+			trace,
+			recorder,
+			null,
+			1
+		);
+	}
+
+	/**
+	 * A client that answers overlay / state / board from a recording, paced like the original
+	 * session ({@code speed} times faster), and sends nothing. No JWT, so the plugin won't try to roll.
+	 */
+	static SnakesApiClient replaying(SnakesLaddersConfig config, SnakesScheduler scheduler, TrafficLog.Replay replay, int speed)
+	{
+		String gameId = replay.gameId.isEmpty() ? "replay" : replay.gameId;
+		return new SnakesApiClient(config.apiBaseUrl(), gameId, "", "", 1, 1, scheduler, null, null, null, replay, speed);
+	}
+
+	public String getGameId()
+	{
+		return gameId;
+	}
+
+	/**
+	 * A URI on the API host, for per-host figures; null when the base URL is invalid.
+	 */
+	URI apiUri()
+	{
+		return gamesUri;
+	}
+
+	public boolean hasGameId()
+	{
+		return !gameId.isEmpty();
+	}
+
+	public boolean hasJwt()
+	{
+		return !jwtToken.isEmpty();
+	}
+
+	boolean isReplay()
+	{
+		return replay != null;
+	}
+
+	/**
+	 * Next poll delay for a server hint (seconds, -1 for none), clamped to the configured bounds.
+	 */
+	public long nextPollDelayMs(long serverDelaySeconds)
+	{
+		if (replay != null)
+		{
+			// recorded pacing; once the log runs out, idle
+			long next = replay.delayToNextMs(replaySpeed);
+			return next >= 0 ? next : DEFAULT_POLL_MS;
+		}
+
+		long ms = serverDelaySeconds >= 0 ? serverDelaySeconds * 1000L : DEFAULT_POLL_MS;
+		return Math.max(minPollMs, Math.min(maxPollMs, ms));
+	}
+
+	/**
+	 * Lightweight poll endpoint for the RuneLite InfoBox overlay.
+	 *
+	 * Backend should support:
+	 * - ETag response header (based on revision)
+	 * - If-None-Match request header
+	 * - 304 Not Modified when unchanged
+	 *
+	 * GET /games/:id/overlay?rsn=...
+	 */
+	public SnakesApi.ApiResult getOverlay(String rsn, String ifNoneMatchEtag) throws IOException, InterruptedException
+	{
+		OverlayEndpoint ep = overlayFor(rsn);
+		return cached("overlay", ep.cacheKey, ifNoneMatchEtag, etag -> fetchOverlay(ep, etag));
+	}
+
+	private SnakesApi.ApiResult fetchOverlay(OverlayEndpoint ep, String ifNoneMatchEtag) throws IOException, InterruptedException
+	{
+		HttpRequest req;
+		if (ifNoneMatchEtag != null && !ifNoneMatchEtag.trim().isEmpty())
+		{
+			req = ep.template.copy().header("if-none-match", ifNoneMatchEtag.trim()).build();
+		}
+		else
+		{
+			req = ep.unconditional;
+		}
+
+		HttpResponse<String> res = send("overlay", req);
+
+		// 304 and 429/503 are expected and should not throw; the caller backs off on the latter
+		if (res.statusCode() == 304 || isThrottled(res))
+		{
+			return result(res, null);
+		}
+
+		if (res.statusCode() >= 400)
+		{
+			throw new IOException("Overlay HTTP " + res.statusCode() + ": " + res.body());
+		}
+
+		return result(res, res.body());
+	}
+
+	/**
+	 * GET /games/:id/state. Like the overlay, throttling responses are returned rather than thrown
+	 * so the caller can honour Retry-After.
+	 */
+	public SnakesApi.ApiResult getGameState() throws IOException, InterruptedException
+	{
+		HttpRequest req = require(stateRequest);
+		return cached("state", req.uri().toString(), null, etag -> fetchGameState(req, etag));
+	}
+
+	private SnakesApi.ApiResult fetchGameState(HttpRequest req, String ifNoneMatchEtag) throws IOException, InterruptedException
+	{
+		// only the shared cache revalidates /state; callers always want the body
+		if (ifNoneMatchEtag != null && !ifNoneMatchEtag.trim().isEmpty())
+		{
+			req = HttpRequest.newBuilder(req.uri())
+				.GET()
+				.header("accept", "application/json")
+				.header("if-none-match", ifNoneMatchEtag.trim())
+				.build();
+		}
+
+		HttpResponse<String> res = send("state", req);
+		if (res.statusCode() == 304) return result(res, null);
+		if (isThrottled(res)) return result(res, null);
+		if (res.statusCode() >= 400) throw new IOException("State HTTP " + res.statusCode() + ": " + res.body());
+		return result(res, res.body());
+	}
+
+	/**
+	 * GET /games/:id/board - layout (snakes/ladders) and every tile's task. Changes rarely, so
+	 * callers pass the last ETag and expect 304 most of the time.
+	 */
+	public SnakesApi.ApiResult getBoard(String ifNoneMatchEtag) throws IOException, InterruptedException
+	{
+		URI u = require(boardUri);
+		return cached("board", u.toString(), ifNoneMatchEtag, etag -> fetchBoard(u, etag));
+	}
+
+	private SnakesApi.ApiResult fetchBoard(URI u, String ifNoneMatchEtag) throws IOException, InterruptedException
+	{
+		HttpRequest.Builder b = HttpRequest.newBuilder(u)
+			.GET()
+			.header("accept", "application/json");
+
+		if (ifNoneMatchEtag != null && !ifNoneMatchEtag.trim().isEmpty())
+		{
+			b.header("if-none-match", ifNoneMatchEtag.trim());
+		}
+
+		HttpResponse<String> res = send("board", b.build());
+		if (res.statusCode() == 304 || isThrottled(res)) return result(res, null);
+		if (res.statusCode() >= 400) throw new IOException("Board HTTP " + res.statusCode() + ": " + res.body());
+		return result(res, res.body());
+	}
+
+	/**
+	 * Opens (or keeps open) a connection to the API host, so the next roll pays one round trip
+	 * rather than DNS, TCP and TLS setup as well. A conditional GET of /board: the server answers
+	 * 304 with no body when it has the ETag, or for "*" when none is known yet.
+	 */
+	public void prewarm(String boardEtag) throws IOException, InterruptedException
+	{
+		String etag = boardEtag == null || boardEtag.trim().isEmpty() ? "*" : boardEtag.trim();
+		HttpRequest req = HttpRequest.newBuilder(require(boardUri))
+			.GET()
+			.header("accept", "application/json")
+			.header("if-none-match", etag)
+			.build();
+		send("prewarm", req);
+	}
+
+	/**
+	 * Whether nothing has been exchanged with the API host for {@link #KEEP_WARM_MS}, so its
+	 * connection has probably been closed.
+	 */
+	public boolean isCold()
+	{
+		long last = lastExchangeNs;
+		return last == 0 || System.nanoTime() - last > KEEP_WARM_MS * 1_000_000L;
+	}
+
+	/**
+	 * NOTE: Plugin no longer needs to create games (website does it),
+	 * but leaving it here is harmless.
+	 */
+	public String createGame(String clanName, String hostPassword, int boardSize, String boardUrl)
+		throws IOException, InterruptedException
+	{
+		String body =
+			"{\"clanName\":\"" + escape(clanName) + "\"," +
+			"\"hostPassword\":\"" + escape(hostPassword) + "\"," +
+			"\"boardSize\":" + boardSize + "," +
+			"\"boardUrl\":\"" + escape(boardUrl) + "\"}";
+
+		HttpResponse<String> res = send("create", jsonPost(require(gamesUri), body).build());
+		if (res.statusCode() >= 400) throw new IOException("Create HTTP " + res.statusCode() + ": " + res.body());
+		return res.body();
+	}
+
+	public String register(String teamName, String teamPassword, String rsn) throws IOException, InterruptedException
+	{
+		String body = "{\"teamName\":\"" + escape(teamName) + "\"," +
+			"\"teamPassword\":\"" + escape(teamPassword) + "\"," +
+			"\"rsn\":\"" + escape(rsn) + "\"}";
+
+		HttpResponse<String> res = send("register", jsonPost(require(registerUri), body).build());
+		if (res.statusCode() >= 400) throw new IOException("Register HTTP " + res.statusCode() + ": " + res.body());
+		return res.body();
+	}
+
+	public String roll() throws IOException, InterruptedException
+	{
+		HttpResponse<String> res = send("roll", require(rollRequest));
+		if (res.statusCode() >= 400) throw new IOException("Roll HTTP " + res.statusCode() + ": " + res.body());
+		return res.body();
+	}
+
+	public String submitProof(String urlToProof) throws IOException, InterruptedException
+	{
+		String body = "{\"url\":\"" + escape(urlToProof) + "\"}";
+
+		HttpRequest req = authed(jsonPost(require(proofUri), body)).build();
+		HttpResponse<String> res = send("proof", req);
+		if (res.statusCode() >= 400) throw new IOException("Proof HTTP " + res.statusCode() + ": " + res.body());
+		return res.body();
+	}
+
+	/**
+	 * One-click screenshot proof: POST /games/:id/proof/upload as multipart/form-data.
+	 * The body is streamed from the encoded image; {@code progress} receives bytes sent so far.
+	 * Blocking, so callers must be off the client thread.
+	 */
+	public String uploadProof(byte[] image, String contentType, String fileName, LongConsumer progress)
+		throws IOException, InterruptedException
+	{
+		String boundary = "----snakes" + Long.toHexString(System.nanoTime());
+		byte[] head = ("--" + boundary + "\r\n"
+			+ "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+			+ "Content-Type: " + contentType + "\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+		byte[] tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+		long length = (long) head.length + image.length + tail.length;
+
+		HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(
+			HttpRequest.BodyPublishers.ofInputStream(() -> new ProgressInputStream(new SequenceInputStream(Collections.enumeration(List.of(
+				new ByteArrayInputStream(head),
+				new ByteArrayInputStream(image),
+				new ByteArrayInputStream(tail)
+			))), progress)),
+			length);
+
+		HttpRequest.Builder b = HttpRequest.newBuilder(require(proofUploadUri))
+			.POST(body)
+			.header("content-type", "multipart/form-data; boundary=" + boundary)
+			.header("accept", "application/json");
+
+		HttpResponse<String> res = send("proof-upload", authed(withWebhook(b)).build());
+		if (res.statusCode() >= 400) throw new IOException("Proof upload HTTP " + res.statusCode() + ": " + res.body());
+		return res.body();
+	}
+
+	/**
+	 * GETs go through the cross-client cache when it's enabled; otherwise straight to the network.
+	 * This is also where responses are recorded, and where a replay answers instead.
+	 */
+	private SnakesApi.ApiResult cached(String endpoint, String key, String ifNoneMatchEtag, SharedCache.Fetch fetch)
+		throws IOException, InterruptedException
+	{
+		if (replay != null) return replay.respond(endpoint, ifNoneMatchEtag);
+
+		SharedCache cache = sharedCache;
+		SnakesApi.ApiResult res = cache == null
+			? fetch.fetch(ifNoneMatchEtag)
+			: cache.get(key, ifNoneMatchEtag, fetch, this::nextPollDelayMs);
+		if (recorder != null) recorder.record(endpoint, res);
+		return res;
+	}
+
+	/**
+	 * Every exchange goes through here so the optional trace sees it; with tracing off this is
+	 * a plain send.
+	 */
+	private HttpResponse<String> send(String endpoint, HttpRequest req) throws IOException, InterruptedException
+	{
+		if (replay != null) throw new IOException("Replaying a recording; " + endpoint + " not sent");
+
+		HttpTrace t = trace;
+		if (t == null) return exchange(req, HttpResponse.BodyHandlers.ofString());
+
+		HttpTrace.Exchange ex = new HttpTrace.Exchange(endpoint, req.method(), req.uri(), secrets);
+		HttpResponse<String> res = null;
+		Throwable error = null;
+		try
+		{
+			res = exchange(req, ex.handler());
+			return res;
+		}
+		catch (IOException | InterruptedException | RuntimeException e)
+		{
+			error = e;
+			throw e;
+		}
+		finally
+		{
+			ex.finish(res, error);
+			t.record(ex);
+		}
+	}
+
+	private <T> HttpResponse<T> exchange(HttpRequest req, HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException
+	{
+		HttpResponse<T> res = scheduler.send(req, handler);
+		lastExchangeNs = System.nanoTime();
+		return res;
+	}
+
+	private OverlayEndpoint overlayFor(String rsn) throws IOException
+	{
+		String key = rsn == null ? "" : rsn.trim();
+		OverlayEndpoint ep = overlay;
+		if (ep != null && ep.rsn.equals(key)) return ep;
+
+		if (!hasGameId()) throw new IOException("No game id configured");
+		URI u = require(uri(overlayPrefix + encQ(key)));
+
+		HttpRequest.Builder template = HttpRequest.newBuilder(u)
+			.GET()
+			.header("accept", "application/json");
+
+		// teammates get the same overlay whatever the RSN, so local clients on one team share a slot
+		String cacheKey = hasJwt() ? "overlay|" + overlayPrefix + "|" + SnakesApi.teamKey(gameId, jwtToken) : u.toString();
+		ep = new OverlayEndpoint(key, cacheKey, template, template.copy().build());
+		overlay = ep;
+		return ep;
+	}
+
+	private static boolean isThrottled(HttpResponse<?> res)
+	{
+		return res.statusCode() == 429 || res.statusCode() == 503;
+	}
+
+	private HttpRequest.Builder jsonPost(URI u, String body)
+	{
+		HttpRequest.Builder b = HttpRequest.newBuilder(u)
+			.POST(HttpRequest.BodyPublishers.ofString(body))
+			.header("content-type", "application/json")
+			.header("accept", "application/json");
+
+		return withWebhook(b);
+	}
+
+	private HttpRequest.Builder withWebhook(HttpRequest.Builder b)
+	{
+		if (!webhookUrl.isEmpty())
+		{
+			b.header("x-discord-webhook-url", webhookUrl);
+		}
+		return b;
+	}
+
+	private HttpRequest.Builder authed(HttpRequest.Builder b)
+	{
+		return b.header("authorization", "Bearer " + jwtToken);
+	}
+
+	private static URI uri(String s)
+	{
+		try
+		{
+			URI u = URI.create(s);
+			String scheme = u.getScheme();
+			return "http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme) ? u : null;
+		}
+		catch (IllegalArgumentException ex)
+		{
+			return null;
+		}
+	}
+
+	private <T> T require(T endpoint) throws IOException
+	{
+		if (endpoint == null) throw new IOException("Invalid API base URL or game id: " + baseUrl);
+		return endpoint;
+	}
+
+	private static final class ProgressInputStream extends FilterInputStream
+	{
+		private final LongConsumer progress;
+		private long sent;
+
+		ProgressInputStream(InputStream in, LongConsumer progress)
+		{
+			super(in);
+			this.progress = progress;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			int b = super.read();
+			if (b >= 0) report(1);
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buf, int off, int len) throws IOException
+		{
+			int n = super.read(buf, off, len);
+			if (n > 0) report(n);
+			return n;
+		}
+
+		private void report(int n)
+		{
+			sent += n;
+			if (progress != null) progress.accept(sent);
+		}
+	}
+
+	private static final class OverlayEndpoint
+	{
+		final String rsn;
+		final String cacheKey;
+		final HttpRequest.Builder template;
+		final HttpRequest unconditional;
+
+		OverlayEndpoint(String rsn, String cacheKey, HttpRequest.Builder template, HttpRequest unconditional)
+		{
+			this.rsn = rsn;
+			this.cacheKey = cacheKey;
+			this.template = template;
+			this.unconditional = unconditional;
+		}
+	}
+}
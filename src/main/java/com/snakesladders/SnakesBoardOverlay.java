@@ -0,0 +1,217 @@
+package com.snakesladders;
+
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayPosition;
+
+import javax.inject.Inject;
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact in-game board with snakes, ladders and every team's position.
+ *
+ * The static board is rendered once per board revision. Team markers are drawn into a second
+ * image, and when standings change only the tiles whose occupants changed are restored from
+ * the static image and redrawn. A frame is therefore a single drawImage.
+ */
+public class SnakesBoardOverlay extends Overlay
+{
+	private static final int CELL = 14;
+
+	private static final Color TILE_A = new Color(58, 52, 44, 220);
+	private static final Color TILE_B = new Color(78, 70, 58, 220);
+	private static final Color SNAKE = new Color(200, 50, 50);
+	private static final Color LADDER = new Color(90, 200, 90);
+	private static final Color OWN_TILE = new Color(255, 255, 255);
+
+	private final SnakesLaddersPlugin plugin;
+	private final SnakesLaddersConfig config;
+
+	private BoardDto renderedBoard;
+	private BoardLayout layout;
+	private BufferedImage staticImage;
+	private BufferedImage composed;
+	private Dimension dimension;
+
+	private Map<String, Integer> renderedStandings;
+	private int renderedOwnTile = -1;
+	// tile -> teams on it, for the tiles currently drawn
+	private final Map<Integer, List<String>> occupants = new HashMap<>();
+
+	@Inject
+	SnakesBoardOverlay(SnakesLaddersPlugin plugin, SnakesLaddersConfig config)
+	{
+		this.plugin = plugin;
+		this.config = config;
+		setPosition(OverlayPosition.TOP_LEFT);
+	}
+
+	@Override
+	public Dimension render(Graphics2D g)
+	{
+		if (!config.showBoardOverlay()) return null;
+
+		// one read, so board, standings and our tile all come from the same update
+		OverlayModel model = plugin.getModel();
+		BoardDto board = model.board;
+		if (board == null) return null;
+
+		if (board != renderedBoard)
+		{
+			rebuildStatic(board);
+		}
+		if (layout == null) return null;
+
+		Map<String, Integer> standings = model.standings;
+		int ownTile = model.ownTile();
+		if (standings != renderedStandings || ownTile != renderedOwnTile)
+		{
+			redrawDirty(standings, ownTile);
+		}
+
+		g.drawImage(composed, 0, 0, null);
+		return dimension;
+	}
+
+	private void rebuildStatic(BoardDto board)
+	{
+		renderedBoard = board;
+		renderedStandings = null;
+		renderedOwnTile = -1;
+		occupants.clear();
+
+		int size = BoardLayout.sizeOf(board);
+		if (size <= 0)
+		{
+			layout = null;
+			return;
+		}
+
+		layout = BoardLayout.of(size, CELL);
+		staticImage = new BufferedImage(layout.width(), layout.height(), BufferedImage.TYPE_INT_ARGB);
+
+		Graphics2D g = staticImage.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		for (int t = 1; t <= size; t++)
+		{
+			g.setColor((t & 1) == 0 ? TILE_A : TILE_B);
+			g.fillRect(layout.x(t), layout.y(t), CELL, CELL);
+		}
+
+		g.setStroke(new BasicStroke(2f));
+		drawJumps(g, board.ladders, LADDER);
+		drawJumps(g, board.snakes, SNAKE);
+		g.dispose();
+
+		composed = new BufferedImage(layout.width(), layout.height(), BufferedImage.TYPE_INT_ARGB);
+		dimension = new Dimension(layout.width(), layout.height());
+		Graphics2D cg = composed.createGraphics();
+		cg.setComposite(AlphaComposite.Src);
+		cg.drawImage(staticImage, 0, 0, null);
+		cg.dispose();
+	}
+
+	private void drawJumps(Graphics2D g, Map<Integer, Integer> jumps, Color color)
+	{
+		if (jumps == null) return;
+		g.setColor(color);
+		for (Map.Entry<Integer, Integer> e : jumps.entrySet())
+		{
+			int from = e.getKey();
+			int to = e.getValue();
+			if (!layout.isOnBoard(from) || !layout.isOnBoard(to)) continue;
+			g.drawLine(layout.centerX(from), layout.centerY(from), layout.centerX(to), layout.centerY(to));
+		}
+	}
+
+	/**
+	 * Restores and redraws only the tiles whose occupants changed since the last frame.
+	 */
+	private void redrawDirty(Map<String, Integer> standings, int ownTile)
+	{
+		Map<Integer, List<String>> next = new HashMap<>();
+		if (standings != null)
+		{
+			for (Map.Entry<String, Integer> e : standings.entrySet())
+			{
+				Integer tile = e.getValue();
+				if (tile == null || !layout.isOnBoard(tile)) continue;
+				next.computeIfAbsent(tile, k -> new ArrayList<>()).add(e.getKey());
+			}
+		}
+
+		Set<Integer> dirty = new HashSet<>();
+		for (Map.Entry<Integer, List<String>> e : next.entrySet())
+		{
+			if (!e.getValue().equals(occupants.get(e.getKey()))) dirty.add(e.getKey());
+		}
+		for (Integer tile : occupants.keySet())
+		{
+			if (!next.containsKey(tile)) dirty.add(tile);
+		}
+		if (ownTile != renderedOwnTile)
+		{
+			if (layout.isOnBoard(renderedOwnTile)) dirty.add(renderedOwnTile);
+			if (layout.isOnBoard(ownTile)) dirty.add(ownTile);
+		}
+
+		occupants.clear();
+		occupants.putAll(next);
+		renderedStandings = standings;
+		renderedOwnTile = ownTile;
+
+		if (dirty.isEmpty()) return;
+
+		Graphics2D g = composed.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setFont(g.getFont().deriveFont(Font.PLAIN, 8f));
+		for (int tile : dirty)
+		{
+			int x = layout.x(tile);
+			int y = layout.y(tile);
+
+			g.setComposite(AlphaComposite.Src);
+			g.drawImage(staticImage, x, y, x + CELL, y + CELL, x, y, x + CELL, y + CELL, null);
+			g.setComposite(AlphaComposite.SrcOver);
+
+			List<String> teams = occupants.get(tile);
+			if (teams != null) drawMarkers(g, x, y, teams);
+
+			if (tile == ownTile)
+			{
+				g.setColor(OWN_TILE);
+				g.drawRect(x, y, CELL - 1, CELL - 1);
+			}
+		}
+		g.dispose();
+	}
+
+	private static void drawMarkers(Graphics2D g, int x, int y, List<String> teams)
+	{
+		// up to 4 dots per tile in a 2x2 grid; any more and the last dot stands for the rest
+		int dot = CELL / 2 - 1;
+		for (int i = 0; i < teams.size() && i < 4; i++)
+		{
+			g.setColor(teamColor(teams.get(i)));
+			g.fillOval(x + 1 + (i % 2) * (dot + 1), y + 1 + (i / 2) * (dot + 1), dot, dot);
+		}
+	}
+
+	static Color teamColor(String team)
+	{
+		float hue = (team == null ? 0 : team.hashCode() & 0xffff) / 65536f;
+		return Color.getHSBColor(hue, 0.65f, 0.95f);
+	}
+}
@@ -4,9 +4,11 @@ import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
 
-@ConfigGroup("snakesladders")
+@ConfigGroup(SnakesLaddersConfig.GROUP)
 public interface SnakesLaddersConfig extends Config
 {
+	String GROUP = "snakesladders";
+
 	@ConfigItem(
 		keyName = "apiBaseUrl",
 		name = "API Base URL",
@@ -58,4 +60,180 @@ public interface SnakesLaddersConfig extends Config
 	{
 		return "";
 	}
+
+	@ConfigItem(
+		keyName = "pollMinSeconds",
+		name = "Min poll interval (s)",
+		description = "Lower bound on the overlay poll interval, even if the server asks for faster"
+	)
+	default int pollMinSeconds()
+	{
+		return 3;
+	}
+
+	@ConfigItem(
+		keyName = "pollMaxSeconds",
+		name = "Max poll interval (s)",
+		description = "Upper bound on how far the server can slow down overlay polling"
+	)
+	default int pollMaxSeconds()
+	{
+		return 300;
+	}
+
+	@ConfigItem(
+		keyName = "proofFormat",
+		name = "Proof image format",
+		description = "Encoding used for one-click screenshot proofs"
+	)
+	default ProofFormat proofFormat()
+	{
+		return ProofFormat.PNG;
+	}
+
+	@ConfigItem(
+		keyName = "proofMaxWidth",
+		name = "Proof max width (px)",
+		description = "Screenshots wider than this are downscaled before upload (0 = full size)"
+	)
+	default int proofMaxWidth()
+	{
+		return 1280;
+	}
+
+	@ConfigItem(
+		keyName = "flagDuplicateProofs",
+		name = "Flag duplicate proofs",
+		description = "Ask before uploading a screenshot that looks like one already submitted for this game"
+	)
+	default boolean flagDuplicateProofs()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "detectCompletions",
+		name = "Detect completions from chat",
+		description = "Watch drop / collection log / kill messages for the current tile's task and prompt for proof"
+	)
+	default boolean detectCompletions()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "autoCaptureProof",
+		name = "Auto screenshot proof",
+		description = "Take and upload a screenshot proof automatically when a completion is detected"
+	)
+	default boolean autoCaptureProof()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "showBoardOverlay",
+		name = "Show board overlay",
+		description = "Draw a compact board with snakes, ladders and team positions in game"
+	)
+	default boolean showBoardOverlay()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "standingsFeed",
+		name = "Standings news",
+		description = "Post rivals' ladders, snakes and overtakes in chat (batched), and notify when you're overtaken or a proof is approved"
+	)
+	default boolean standingsFeed()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "tileMinutes",
+		name = "Minutes per tile",
+		description = "Typical time to complete a tile, used for win chances and ETAs when the board has no estimate"
+	)
+	default int tileMinutes()
+	{
+		return 20;
+	}
+
+	@ConfigItem(
+		keyName = "partySync",
+		name = "Share updates with party",
+		description = "When teammates are in your RuneLite party, only one of you polls the server and shares the result"
+	)
+	default boolean partySync()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "shareAcrossClients",
+		name = "Share updates between clients",
+		description = "When several RuneLite clients on this computer follow the same game, only one of them polls the server"
+	)
+	default boolean shareAcrossClients()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "httpTrace",
+		name = "Trace HTTP requests",
+		description = "Log timing and status of every backend request to .runelite/snakesladders (for troubleshooting; tokens are redacted)"
+	)
+	default boolean httpTrace()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "memoryBudgetMb",
+		name = "Memory budget (MB)",
+		description = "Warn once in chat if the plugin's images, history and board data grow past this (0 = never)"
+	)
+	default int memoryBudgetMb()
+	{
+		return 64;
+	}
+
+	@ConfigItem(
+		keyName = "recordTraffic",
+		name = "Record overlay traffic",
+		description = "Save every overlay/state/board response to .runelite/snakesladders/traffic-*.snkr so a session can be replayed"
+	)
+	default boolean recordTraffic()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "replayFile",
+		name = "Replay recording",
+		description = "Path to a traffic-*.snkr file to play back instead of contacting the server (leave empty for normal use)"
+	)
+	default String replayFile()
+	{
+		return "";
+	}
+
+	@ConfigItem(
+		keyName = "replaySpeed",
+		name = "Replay speed",
+		description = "How many times faster than recorded a replay runs"
+	)
+	default int replaySpeed()
+	{
+		return 1;
+	}
+
+	enum ProofFormat
+	{
+		PNG,
+		JPEG
+	}
 }
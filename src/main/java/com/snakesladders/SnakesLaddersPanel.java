@@ -5,6 +5,7 @@ import net.runelite.client.ui.PluginPanel;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
+import java.util.Map;
 
 public class SnakesLaddersPanel extends PluginPanel
 {
@@ -16,17 +17,28 @@ public class SnakesLaddersPanel extends PluginPanel
 	private final JLabel proofLabel = new JLabel("-");
 	private final JLabel canRollLabel = new JLabel("-");
 
+	private static final int WIN_ROWS = 5;
+
 	public final JButton setupButton = new JButton("Set Up (Open Website)");
 	public final JButton viewBoardButton = new JButton("View Board");
 
 	public final JButton connectButton = new JButton("Connect");
 	public final JButton disconnectButton = new JButton("Disconnect");
 	public final JButton actionButton = new JButton("Roll");
+	public final JButton captureProofButton = new JButton("Screenshot Proof");
+	public final JButton exportHistoryButton = new JButton("Export History");
+	public final JButton diagnosticsButton = new JButton("Diagnostics");
+
+	private final JProgressBar proofProgress = new JProgressBar(0, 100);
+	private final BoardView boardView = new BoardView();
+	private final HistoryModel historyModel = new HistoryModel();
+	private final JPanel winPanel = new JPanel(new GridLayout(0, 1, 0, 3));
 
 	private boolean connected = false;
 	private boolean awaitingProof = false;
 	private boolean canRoll = false;
 	private boolean hasGameId = false;
+	private boolean proofBusy = false;
 
 	public SnakesLaddersPanel()
 	{
@@ -36,8 +48,11 @@ public class SnakesLaddersPanel extends PluginPanel
 		JPanel top = new JPanel();
 		top.setLayout(new BoxLayout(top, BoxLayout.Y_AXIS));
 		top.add(buildHeader());
+		top.add(buildBoard());
+		top.add(buildWinChances());
 
 		add(top, BorderLayout.NORTH);
+		add(buildHistory(), BorderLayout.CENTER);
 		add(buildActions(), BorderLayout.SOUTH);
 
 		setStatus("Not connected");
@@ -64,6 +79,36 @@ public class SnakesLaddersPanel extends PluginPanel
 		return p;
 	}
 
+	private JPanel buildBoard()
+	{
+		JPanel p = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
+		p.setBorder(new EmptyBorder(6, 0, 0, 0));
+		p.add(boardView);
+		return p;
+	}
+
+	private JPanel buildWinChances()
+	{
+		winPanel.setBorder(BorderFactory.createTitledBorder("Win chances"));
+		winPanel.setVisible(false);
+		return winPanel;
+	}
+
+	private JPanel buildHistory()
+	{
+		JList<String> list = new JList<>(historyModel);
+		list.setFont(list.getFont().deriveFont(11f));
+		list.setVisibleRowCount(8);
+		// fixed cell size: the list never measures every row
+		list.setPrototypeCellValue("00:00:00  Overlay revision W/\"0000000000\"");
+
+		JPanel p = new JPanel(new BorderLayout(0, 4));
+		p.setBorder(BorderFactory.createTitledBorder("History"));
+		p.add(new JScrollPane(list), BorderLayout.CENTER);
+		p.add(exportHistoryButton, BorderLayout.SOUTH);
+		return p;
+	}
+
 	private JPanel buildActions()
 	{
 		JPanel p = new JPanel(new GridLayout(0, 1, 0, 6));
@@ -75,6 +120,13 @@ public class SnakesLaddersPanel extends PluginPanel
 		p.add(connectButton);
 		p.add(disconnectButton);
 		p.add(actionButton);
+		p.add(captureProofButton);
+
+		proofProgress.setStringPainted(true);
+		proofProgress.setVisible(false);
+		p.add(proofProgress);
+
+		p.add(diagnosticsButton);
 
 		refreshButtons();
 		return p;
@@ -98,6 +150,10 @@ public class SnakesLaddersPanel extends PluginPanel
 		// action only makes sense when connected (i.e., gameId set)
 		actionButton.setEnabled(connected);
 
+		// one-click proof only while the tile is waiting for one
+		captureProofButton.setVisible(connected && awaitingProof);
+		captureProofButton.setEnabled(!proofBusy);
+
 		// setup is always enabled
 		setupButton.setEnabled(true);
 
@@ -132,7 +188,16 @@ public class SnakesLaddersPanel extends PluginPanel
 
 	public void setTile(int tile)
 	{
-		tileLabel.setText(String.valueOf(tile));
+		setTile(tile, Double.NaN);
+	}
+
+	/**
+	 * @param rollsLeft expected rolls to finish from {@code tile}, or NaN if unknown
+	 */
+	public void setTile(int tile, double rollsLeft)
+	{
+		String rolls = Double.isNaN(rollsLeft) || Double.isInfinite(rollsLeft) ? "" : String.format(" (~%.1f rolls left)", rollsLeft);
+		tileLabel.setText(tile + rolls);
 	}
 
 	public void setAwaitingProof(boolean awaiting)
@@ -140,6 +205,27 @@ public class SnakesLaddersPanel extends PluginPanel
 		this.awaitingProof = awaiting;
 		proofLabel.setText(awaiting ? "YES" : "NO");
 		refreshActionLabel();
+		refreshButtons();
+	}
+
+	/**
+	 * Shows screenshot proof progress. A negative percent shows an indeterminate bar.
+	 */
+	public void setProofProgress(String text, int percent)
+	{
+		proofBusy = true;
+		proofProgress.setIndeterminate(percent < 0);
+		proofProgress.setValue(Math.max(0, Math.min(100, percent)));
+		proofProgress.setString(text);
+		proofProgress.setVisible(true);
+		refreshButtons();
+	}
+
+	public void clearProofProgress()
+	{
+		proofBusy = false;
+		proofProgress.setVisible(false);
+		refreshButtons();
 	}
 
 	public void setCanRoll(boolean canRoll)
@@ -161,8 +247,98 @@ public class SnakesLaddersPanel extends PluginPanel
 		refreshButtons();
 	}
 
+	public void setBoard(BoardDto board, TileImageCache images)
+	{
+		boardView.setBoard(board, images);
+	}
+
+	public void setStandings(Map<String, Integer> standings, int ownTile)
+	{
+		boardView.setStandings(standings, ownTile);
+	}
+
+	/**
+	 * Shows the top teams from a simulation run, or hides the section for null.
+	 */
+	void setWinChances(WinSimulator.Result result)
+	{
+		winPanel.removeAll();
+		if (result != null)
+		{
+			Integer[] order = WinSimulator.ranking(result);
+			for (int i = 0; i < Math.min(WIN_ROWS, order.length); i++)
+			{
+				int t = order[i];
+				String text = Math.round(result.winProbability[t] * 100) + "% \u00b7 ETA " + formatEta(result.etaMinutes[t]);
+				winPanel.add(line(blankToDash(result.teams[t]), new JLabel(text)));
+			}
+		}
+		winPanel.setVisible(result != null && result.teams.length > 0);
+		winPanel.revalidate();
+		winPanel.repaint();
+	}
+
+	public void setHistory(EventHistory history)
+	{
+		historyModel.history = history;
+		historyChanged();
+	}
+
+	/**
+	 * Call on the EDT after events were added.
+	 */
+	public void historyChanged()
+	{
+		historyModel.refresh();
+	}
+
+	public void dispose()
+	{
+		boardView.dispose();
+	}
+
+	private static String formatEta(double minutes)
+	{
+		if (Double.isNaN(minutes)) return "-";
+		long m = Math.round(minutes);
+		return m >= 60 ? (m / 60) + "h " + (m % 60) + "m" : m + "m";
+	}
+
 	private static String blankToDash(String s)
 	{
 		return (s == null || s.trim().isEmpty()) ? "-" : s.trim();
 	}
+
+	/**
+	 * Newest-first view straight over the ring buffer; nothing is copied.
+	 */
+	private static final class HistoryModel extends AbstractListModel<String>
+	{
+		private final EventHistory.Record scratch = new EventHistory.Record();
+		private EventHistory history;
+		private long newest;
+		private int size;
+
+		void refresh()
+		{
+			int old = size;
+			size = history == null ? 0 : history.size();
+			newest = history == null ? 0 : history.nextSeq() - 1;
+			if (old > 0) fireIntervalRemoved(this, 0, old - 1);
+			if (size > 0) fireIntervalAdded(this, 0, size - 1);
+		}
+
+		@Override
+		public int getSize()
+		{
+			return size;
+		}
+
+		@Override
+		public String getElementAt(int index)
+		{
+			if (history == null || !history.read(newest - index, scratch)) return "";
+			return EventHistory.format(scratch);
+		}
+	}
 }
@@ -8,35 +8,80 @@ import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.Skill;
+import net.runelite.api.TileItem;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.FocusChanged;
 import net.runelite.api.events.GameStateChanged;
-
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.ItemSpawned;
+import net.runelite.api.events.StatChanged;
+import net.runelite.api.widgets.ComponentID;
+import net.runelite.api.widgets.Widget;
+
+import net.runelite.client.Notifier;
+import net.runelite.client.RuneLite;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
+import net.runelite.client.events.PartyChanged;
+import net.runelite.client.game.ItemStack;
+import net.runelite.client.party.PartyService;
+import net.runelite.client.party.WSClient;
+import net.runelite.client.party.events.UserPart;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
+import net.runelite.client.plugins.loottracker.LootReceived;
 import net.runelite.client.ui.ClientToolbar;
+import net.runelite.client.ui.DrawManager;
 import net.runelite.client.ui.NavigationButton;
+import net.runelite.client.ui.overlay.OverlayManager;
 import net.runelite.client.ui.overlay.infobox.InfoBoxManager;
+import net.runelite.client.util.ImageUtil;
 import net.runelite.client.util.LinkBrowser;
+import net.runelite.client.util.Text;
 
 import javax.inject.Inject;
+import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
 import java.awt.image.BufferedImage;
-import java.awt.BasicStroke;
-import java.awt.Color;
-import java.awt.Graphics2D;
+import java.awt.Font;
+import java.awt.Frame;
+import java.awt.Rectangle;
+import java.awt.Window;
+import java.io.File;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @PluginDescriptor(name = "Snakes & Ladders")
 public class SnakesLaddersPlugin extends Plugin
 {
+	// How long we keep polling after logout / hop / minimise before suspending the timers
+	private static final long SUSPEND_GRACE_MS = 30_000;
+	// tile progress lives in its own group, so saving it on every kill doesn't look like a settings change
+	private static final String PROGRESS_GROUP = "snakesladdersprogress";
+	// settings baked into the API client (or its trace, cache and recorder); other changes leave it alone
+	private static final Set<String> API_KEYS = Set.of("apiBaseUrl", "gameId", "jwtToken", "discordWebhookUrl",
+		"pollMinSeconds", "pollMaxSeconds", "shareAcrossClients", "httpTrace", "recordTraffic", "replayFile", "replaySpeed");
+
 	@Inject private Client client;
 	@Inject private ClientThread clientThread;
 	@Inject private SnakesLaddersConfig config;
@@ -44,34 +89,118 @@ public class SnakesLaddersPlugin extends Plugin
 	@Inject private ConfigManager configManager;
 
 	@Inject private InfoBoxManager infoBoxManager;
+	@Inject private DrawManager drawManager;
+	@Inject private OverlayManager overlayManager;
+	@Inject private SnakesBoardOverlay boardOverlay;
+	@Inject private PartyService partyService;
+	@Inject private WSClient wsClient;
+	@Inject private Notifier notifier;
 
 	private final Gson gson = new Gson();
 
 	private SnakesLaddersPanel panel;
 	private NavigationButton navButton;
 
-	private Timer overlayPollTimer;
-	private Timer overlayTickTimer;
-
-	private String currentClanName = "Sixth Degree";
-	private String currentTeamName = "-";
+	private static final BufferedImage NAV_ICON = ImageUtil.loadImageResource(SnakesLaddersPlugin.class, "nav_icon.png");
+
+	// the scheduler and the trace, cache and recorder the API client is built with
+	private SnakesServices services;
+	// Every background thread (polling, proofs, exports, tile images, HTTP) belongs to this
+	private SnakesScheduler scheduler;
+	private final EventHistory history = new EventHistory(EventHistory.DEFAULT_CAPACITY);
+	private TileImageCache tileImageCache;
+	private final AtomicBoolean proofUploading = new AtomicBoolean();
+	// hashes of this game's uploaded proofs; replaced when the game changes
+	private volatile ProofIndex proofIndex;
+
+	private OverlayPoller poller;
+	private ScheduledFuture<?> overlayTick;
+	// started with the first poll, runs until shutdown (including while polling is suspended)
+	private ScheduledFuture<?> footprintSampler;
+	private final Diagnostics diagnostics = new Diagnostics();
+	private final AtomicBoolean prewarming = new AtomicBoolean();
+	private volatile boolean pollingSuspended;
+	private long inactiveSinceMs;
 
 	private SnakesTileInfoBox tileInfoBox;
-	private String overlayEtag;
-	private OverlaySnapshot overlaySnapshot;
+	private volatile SnakesApiClient api;
+	private PartySync partySync;
+	// snapshot, board, standings and team, swapped as a whole so readers never see a mix
+	private final AtomicReference<OverlayModel> model = new AtomicReference<>(OverlayModel.EMPTY.withTeam("Sixth Degree", "-"));
+	private BoardDto panelBoard;
+	private Map<String, Integer> panelStandings;
+	private int panelOwnTile = -1;
+	private final StandingsFeed feed = new StandingsFeed();
+	private BoardDto simBoard;
+	private Map<String, Integer> simStandings;
+	private volatile int simGeneration;
+	private final AtomicReference<Runnable> pendingSim = new AtomicReference<>();
+	// rebuilt on the poll worker with each new board
+	private volatile TileChatMatcher chatMatcher = TileChatMatcher.EMPTY;
+	private int promptedTile = -1;
+	private String localRsn = "";
+
+	private final TileItemTracker itemTracker = new TileItemTracker();
+	private final TileProgressTracker progressTracker = new TileProgressTracker();
+	private String progressGameId = "";
+	private String progressKeyKept;
+	private int shownPercent = -1;
+	private BoardDto trackedBoard;
+	private int[] invIds = new int[28];
+	private int[] invQty = new int[28];
 
 	@Override
 	protected void startUp()
 	{
+		long startNs = System.nanoTime();
+
+		// Everything that opens sockets or threads (HTTP client, workers, poll timer) is created
+		// on first use, so enabling the plugin only builds the panel.
+		services = new SnakesServices(config, new File(RuneLite.RUNELITE_DIR, "snakesladders"));
+		scheduler = services.scheduler();
+		api = services.buildApi();
+		partySync = new PartySync(new RuneLitePartyTransport(partyService));
+		partySync.setIdentity(config.gameId(), config.jwtToken());
+		poller = new OverlayPoller(config, scheduler, clientThread::invokeLater, () -> api, model, partySync, new OverlayPoller.Listener()
+		{
+			@Override
+			public void boardLoaded(BoardDto board)
+			{
+				chatMatcher = TileChatMatcher.build(board);
+			}
+
+			@Override
+			public void overlayApplied(SnakesApiClient api, OverlayModel before, OverlayModel after, String etag)
+			{
+				applyOverlay(api, before, after, etag);
+			}
+
+			@Override
+			public void overlayFailed()
+			{
+				showOverlayOffline();
+			}
+
+			@Override
+			public void notConnected()
+			{
+				if (panel == null) return;
+				panel.setHasGameId(false);
+				panel.setConnected(false);
+				panel.setStatus("Not connected");
+			}
+		});
+		wsClient.registerMessage(SnakesPartyMessage.class);
+		tileImageCache = new TileImageCache(scheduler);
 		panel = new SnakesLaddersPanel();
 
-		BufferedImage icon = buildNavIcon();
 		navButton = NavigationButton.builder()
 			.tooltip("Snakes & Ladders")
-			.icon(icon)
+			.icon(NAV_ICON)
 			.panel(panel)
 			.build();
 		clientToolbar.addNavigation(navButton);
+		overlayManager.add(boardOverlay);
 
 		// Buttons
 		panel.setupButton.addActionListener(e -> clientThread.invokeLater(this::openSetup));
@@ -80,6 +209,10 @@ public class SnakesLaddersPlugin extends Plugin
 		panel.connectButton.addActionListener(e -> clientThread.invokeLater(this::connect));
 		panel.disconnectButton.addActionListener(e -> clientThread.invokeLater(this::disconnect));
 		panel.actionButton.addActionListener(e -> clientThread.invokeLater(this::action));
+		panel.captureProofButton.addActionListener(e -> clientThread.invokeLater(this::captureProof));
+		panel.exportHistoryButton.addActionListener(e -> exportHistory());
+		panel.diagnosticsButton.addActionListener(e -> showDiagnostics());
+		panel.setHistory(history);
 
 		updateHeader();
 
@@ -92,9 +225,17 @@ public class SnakesLaddersPlugin extends Plugin
 
 		if (hasGameId)
 		{
-			ensureInfoBox();
-			startOverlayPolling();
+			// Polling waits for LOGGED_IN; if we're already logged in the first fetch runs on the
+			// client thread after startUp returns rather than inside it
+			clientThread.invokeLater(() ->
+			{
+				if (panel == null || !hasGameId()) return;
+				ensureInfoBox();
+				startOverlayPolling();
+			});
 		}
+
+		log.debug("Snakes & Ladders started in {} µs", (System.nanoTime() - startNs) / 1_000);
 	}
 
 	@Override
@@ -102,13 +243,66 @@ public class SnakesLaddersPlugin extends Plugin
 	{
 		stopOverlayPolling();
 		removeInfoBox();
+		overlayManager.remove(boardOverlay);
+		wsClient.unregisterMessage(SnakesPartyMessage.class);
+		partySync = null;
+		poller = null;
+
+		if (services != null)
+		{
+			services.shutdown();
+			services = null;
+		}
+		scheduler = null;
+		footprintSampler = null;
+		tileImageCache = null;
 
 		if (navButton != null)
 		{
 			clientToolbar.removeNavigation(navButton);
 			navButton = null;
 		}
+		if (panel != null)
+		{
+			SnakesLaddersPanel p = panel;
+			SwingUtilities.invokeLater(p::dispose);
+		}
 		panel = null;
+		api = null;
+	}
+
+	@Subscribe
+	public void onConfigChanged(ConfigChanged ev)
+	{
+		if (!SnakesLaddersConfig.GROUP.equals(ev.getGroup()) || !API_KEYS.contains(ev.getKey())) return;
+
+		// Rebuild the endpoint snapshot; in-flight requests keep using the old one.
+		SnakesServices s = services;
+		if (s == null) return;
+		api = s.buildApi();
+		if (partySync != null) partySync.setIdentity(config.gameId(), config.jwtToken());
+	}
+
+	@Subscribe
+	public void onSnakesPartyMessage(SnakesPartyMessage msg)
+	{
+		// party messages arrive on the websocket thread; the poller takes them to a worker
+		OverlayPoller p = poller;
+		if (p != null) p.onShared(msg);
+	}
+
+	@Subscribe
+	public void onUserPart(UserPart ev)
+	{
+		PartySync sync = partySync;
+		if (sync != null) sync.memberLeft(ev.getMemberId());
+	}
+
+	@Subscribe
+	public void onPartyChanged(PartyChanged ev)
+	{
+		PartySync sync = partySync;
+		if (sync != null) sync.reset();
 	}
 
 	@Subscribe
@@ -117,6 +311,17 @@ public class SnakesLaddersPlugin extends Plugin
 		if (ev.getGameState() == GameState.LOGGED_IN)
 		{
 			updateHeader();
+			resumeOverlayPolling();
+		}
+	}
+
+	@Subscribe
+	public void onFocusChanged(FocusChanged ev)
+	{
+		// Restoring a minimised client gives it focus again
+		if (ev.isFocused() && pollingSuspended)
+		{
+			clientThread.invokeLater(this::resumeOverlayPolling);
 		}
 	}
 
@@ -124,13 +329,15 @@ public class SnakesLaddersPlugin extends Plugin
 	{
 		if (panel == null) return;
 		String rsn = client.getLocalPlayer() != null ? client.getLocalPlayer().getName() : "-";
-		panel.setHeader(currentClanName, currentTeamName, rsn);
+		localRsn = rsn == null || "-".equals(rsn) ? "" : rsn;
+		OverlayModel m = model.get();
+		panel.setHeader(m.clanName, m.teamName, rsn);
 	}
 
 	private boolean hasGameId()
 	{
-		String gameId = config.gameId();
-		return gameId != null && !gameId.trim().isEmpty();
+		SnakesApiClient api = this.api;
+		return api != null && api.hasGameId();
 	}
 
 	private String webBase()
@@ -186,38 +393,6 @@ public class SnakesLaddersPlugin extends Plugin
 		}
 	}
 
-	private static BufferedImage buildNavIcon()
-	{
-		BufferedImage icon = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g = icon.createGraphics();
-		g.setColor(new Color(240, 240, 240));
-		g.fillRoundRect(2, 2, 12, 12, 3, 3);
-		g.setColor(new Color(60, 60, 60));
-		g.setStroke(new BasicStroke(1f));
-		g.drawRoundRect(2, 2, 12, 12, 3, 3);
-
-		g.setColor(new Color(20, 20, 20));
-		g.fillOval(4, 4, 2, 2);
-		g.fillOval(10, 4, 2, 2);
-		g.fillOval(7, 7, 2, 2);
-		g.fillOval(4, 10, 2, 2);
-		g.fillOval(10, 10, 2, 2);
-
-		int[][] snake = {
-			{4, 11}, {5, 10}, {6, 9}, {7, 8}, {8, 7}, {9, 6}, {10, 5}, {11, 4}
-		};
-		for (int i = 0; i < snake.length; i++)
-		{
-			g.setColor(i % 2 == 0 ? new Color(0, 120, 0) : new Color(0, 180, 0));
-			g.fillRect(snake[i][0], snake[i][1], 1, 1);
-		}
-		g.setColor(new Color(0, 180, 0));
-		g.fillRect(11, 4, 2, 1);
-		g.fillRect(12, 5, 1, 1);
-		g.dispose();
-		return icon;
-	}
-
 	private void connect()
 	{
 		if (panel == null) return;
@@ -226,7 +401,7 @@ public class SnakesLaddersPlugin extends Plugin
 		if (gameId == null || gameId.trim().isEmpty()) return;
 
 		String trimmed = gameId.trim();
-		configManager.setConfiguration("snakesladders", "gameId", trimmed);
+		configManager.setConfiguration(SnakesLaddersConfig.GROUP, "gameId", trimmed);
 
 		panel.setHasGameId(true);
 		panel.setConnected(true);
@@ -245,10 +420,10 @@ public class SnakesLaddersPlugin extends Plugin
 	{
 		if (panel == null) return;
 
-		configManager.setConfiguration("snakesladders", "gameId", "");
-		configManager.setConfiguration("snakesladders", "jwtToken", "");
+		configManager.setConfiguration(SnakesLaddersConfig.GROUP, "gameId", "");
+		configManager.setConfiguration(SnakesLaddersConfig.GROUP, "jwtToken", "");
 
-		currentTeamName = "-";
+		model.updateAndGet(m -> m.withTeam(m.clanName, "-"));
 		updateHeader();
 
 		panel.setHasGameId(false);
@@ -260,13 +435,17 @@ public class SnakesLaddersPlugin extends Plugin
 
 		stopOverlayPolling();
 		removeInfoBox();
+
+		model.updateAndGet(m -> m.withBoard(null, null).withStandings(null));
+		pushBoardToPanel();
 	}
 
 	private void action()
 	{
 		if (panel == null) return;
 
-		if (overlaySnapshot != null && overlaySnapshot.awaitingProof)
+		OverlaySnapshot snap = model.get().snapshot;
+		if (snap != null && snap.awaitingProof)
 		{
 			submitProof();
 		}
@@ -299,144 +478,590 @@ public class SnakesLaddersPlugin extends Plugin
 	{
 		stopOverlayPolling();
 
-		overlayEtag = null;
-		overlaySnapshot = null;
+		if (poller != null) poller.reset();
+		model.updateAndGet(OverlayModel::cleared);
+		feed.clear();
+		chatMatcher = TileChatMatcher.EMPTY;
+		promptedTile = -1;
+		inactiveSinceMs = 0;
 
-		overlayPollTimer = new Timer("snakes-overlay-poll", true);
-		overlayPollTimer.scheduleAtFixedRate(new TimerTask()
+		if (!isClientActive())
 		{
-			@Override
-			public void run()
-			{
-				clientThread.invokeLater(() ->
-				{
-					try
-					{
-						pollOverlayOnce();
-					}
-					catch (Exception ex)
-					{
-						log.debug("Overlay poll error", ex);
-						if (tileInfoBox != null)
-						{
-							tileInfoBox.setText("");
-							tileInfoBox.setTooltipLines("Snakes & Ladders", "Overlay endpoint unreachable.");
-						}
-
-						if (panel != null)
-						{
-							panel.setStatus("Overlay offline");
-							panel.setCanRoll(false);
-						}
-					}
-				});
-			}
-		}, 0, 5_000);
+			// Nothing to show at the login screen; first fetch happens on LOGGED_IN
+			pollingSuspended = true;
+			return;
+		}
+
+		scheduleOverlayTimers();
+	}
+
+	/**
+	 * Resumes after {@link #suspendOverlayPolling()}. Keeps the last ETag so the first
+	 * request back is a cheap conditional fetch.
+	 */
+	private void resumeOverlayPolling()
+	{
+		if (!pollingSuspended || !hasGameId() || !isClientActive()) return;
+
+		log.debug("Resuming overlay polling");
+		pollingSuspended = false;
+		inactiveSinceMs = 0;
+		scheduleOverlayTimers();
+	}
+
+	private void suspendOverlayPolling()
+	{
+		log.debug("Suspending overlay polling (logged out or minimised)");
+		stopOverlayPolling();
+		pollingSuspended = true;
+	}
+
+	private void scheduleOverlayTimers()
+	{
+		SnakesScheduler scheduler = this.scheduler;
+		OverlayPoller poller = this.poller;
+		if (scheduler == null || poller == null) return;
 
-		overlayTickTimer = new Timer("snakes-overlay-tick", true);
-		overlayTickTimer.scheduleAtFixedRate(new TimerTask()
+		poller.setClientState(true, currentRsn());
+		poller.start();
+
+		try
 		{
-			@Override
-			public void run()
+			if (footprintSampler == null)
 			{
-				clientThread.invokeLater(() ->
-				{
-					if (tileInfoBox == null) return;
-					if (overlaySnapshot == null) return;
-					tileInfoBox.setText(computeCountdownText(overlaySnapshot));
-				});
+				footprintSampler = scheduler.scheduleAtFixedRate(SnakesScheduler.Priority.LOW, this::sampleFootprint,
+					Diagnostics.SAMPLE_INTERVAL_MS, Diagnostics.SAMPLE_INTERVAL_MS);
 			}
-		}, 1_000, 1_000);
+			overlayTick = scheduler.scheduleAtFixedRate(SnakesScheduler.Priority.NORMAL, () -> clientThread.invokeLater(this::tick), 1_000, 1_000);
+		}
+		catch (RejectedExecutionException ignored)
+		{
+			// shutting down
+		}
 	}
 
-	private void stopOverlayPolling()
+	/**
+	 * Client thread, every second while polling: tells the poller whether the client is active
+	 * (suspending once it's been away for the grace period), and runs the timed UI work.
+	 */
+	private void tick()
+	{
+		boolean active = checkActive();
+		OverlayPoller poller = this.poller;
+		if (poller != null) poller.setClientState(active, currentRsn());
+		if (!active) return;
+
+		// heartbeats follow the tick, not the poll, so a slow poll rate doesn't look like a dead leader
+		PartySync sync = partySync;
+		if (sync != null && config.partySync()) sync.heartbeat(System.currentTimeMillis());
+		flushFeed();
+		keepConnectionWarm();
+
+		OverlaySnapshot snap = model.get().snapshot;
+		if (tileInfoBox == null) return;
+		if (snap == null) return;
+		if (shownPercent >= 0) return; // progress owns the text
+		tileInfoBox.setText(computeCountdownText(snap));
+	}
+
+	private String currentRsn()
 	{
-		if (overlayPollTimer != null)
+		String rsn = client.getLocalPlayer() != null ? client.getLocalPlayer().getName() : "";
+		return rsn == null ? "" : rsn;
+	}
+
+	private void showOverlayOffline()
+	{
+		if (tileInfoBox != null)
 		{
-			overlayPollTimer.cancel();
-			overlayPollTimer = null;
+			tileInfoBox.setText("");
+			tileInfoBox.setTooltipLines("Snakes & Ladders", "Overlay endpoint unreachable.");
 		}
-		if (overlayTickTimer != null)
+
+		if (panel != null)
 		{
-			overlayTickTimer.cancel();
-			overlayTickTimer = null;
+			panel.setStatus("Overlay offline");
+			panel.setCanRoll(false);
 		}
 	}
 
-	private void pollOverlayOnce() throws Exception
+	private void stopOverlayPolling()
 	{
-		String baseUrl = config.apiBaseUrl();
-		String gameId = config.gameId();
-		if (gameId == null || gameId.trim().isEmpty())
+		pollingSuspended = false;
+		if (poller != null) poller.stop();
+		if (overlayTick != null)
 		{
-			if (panel != null)
-			{
-				panel.setHasGameId(false);
-				panel.setConnected(false);
-				panel.setStatus("Not connected");
-			}
-			return;
+			overlayTick.cancel(false);
+			overlayTick = null;
 		}
+	}
 
-		// Keep panel view button in-sync (gameId exists)
-		if (panel != null)
+	/**
+	 * Called from the tick. Once the client has been inactive for longer than the grace period
+	 * the timers are cancelled until we're logged in and visible again.
+	 */
+	private boolean checkActive()
+	{
+		if (isClientActive())
 		{
-			panel.setHasGameId(true);
-			panel.setConnected(true);
+			inactiveSinceMs = 0;
+			return true;
 		}
 
-		String rsn = client.getLocalPlayer() != null ? client.getLocalPlayer().getName() : "";
-		if (rsn == null) rsn = "";
+		long now = System.currentTimeMillis();
+		if (inactiveSinceMs == 0)
+		{
+			inactiveSinceMs = now;
+		}
+		else if (now - inactiveSinceMs >= SUSPEND_GRACE_MS)
+		{
+			suspendOverlayPolling();
+		}
+		return false;
+	}
 
-		ensureInfoBox();
+	private boolean isClientActive()
+	{
+		return client.getGameState() == GameState.LOGGED_IN && !isClientMinimised();
+	}
 
-		SnakesApi.ApiResult res = SnakesApi.getOverlay(baseUrl, gameId.trim(), rsn.trim(), overlayEtag);
+	private boolean isClientMinimised()
+	{
+		if (client.getCanvas() == null) return false;
+		Window w = SwingUtilities.getWindowAncestor(client.getCanvas());
+		if (w == null) return false;
+		if (!w.isVisible()) return true;
+		return w instanceof Frame && (((Frame) w).getExtendedState() & Frame.ICONIFIED) != 0;
+	}
 
-		if (res.etag != null && !res.etag.trim().isEmpty())
+	/**
+	 * Client thread: shows an /overlay snapshot the poller has published along with its board and
+	 * standings, either from our own poll or shared by the party leader.
+	 */
+	private void applyOverlay(SnakesApiClient api, OverlayModel before, OverlayModel after, String etag)
+	{
+		OverlaySnapshot snap = after.snapshot;
+		ensureInfoBox();
+		if (panel != null)
 		{
-			overlayEtag = res.etag.trim();
+			panel.setHasGameId(true);
+			panel.setConnected(true);
 		}
 
-		if (res.isNotModified()) return;
-		if (res.body == null || res.body.trim().isEmpty()) return;
+		recordOverlayEvents(before.snapshot, snap, etag);
+		pushBoardToPanel();
+		if (config.standingsFeed()) feed.onUpdate(before, after);
+		syncTileTrackers(api, snap);
 
-		JsonObject root = gson.fromJson(res.body, JsonObject.class);
-		OverlaySnapshot snap = OverlaySnapshot.fromJson(root);
-		overlaySnapshot = snap;
+		showSnapshot(panel, shownPercent < 0 ? tileInfoBox : null, api.hasJwt(), after);
+		refreshTileTooltip();
+	}
 
+	/**
+	 * The panel and InfoBox part of showing a snapshot; pass a null InfoBox while progress owns
+	 * its text. Static so the latency benchmark times the same calls.
+	 */
+	static void showSnapshot(SnakesLaddersPanel panel, SnakesTileInfoBox infoBox, boolean hasJwt, OverlayModel m)
+	{
+		OverlaySnapshot snap = m.snapshot;
 		if (panel != null)
 		{
-			panel.setTile(snap.tileIndex);
+			panel.setTile(snap.tileIndex, m.rollsLeft(snap.tileIndex));
 			panel.setAwaitingProof(snap.awaitingProof);
 
-			boolean hasJwt = config.jwtToken() != null && !config.jwtToken().trim().isEmpty();
 			boolean canRoll = hasJwt && !snap.awaitingProof && "running".equalsIgnoreCase(snap.phase);
 			panel.setCanRoll(canRoll);
 
 			panel.setStatus(statusFromPhase(snap.phase, snap.awaitingProof));
 		}
 
-		if (tileInfoBox != null)
+		if (infoBox != null)
 		{
-			tileInfoBox.setText(computeCountdownText(snap));
+			infoBox.setText(computeCountdownText(snap));
+		}
+	}
 
-			if (snap.tileTitle != null && !snap.tileTitle.isEmpty())
+	/**
+	 * Client thread, from the tick: re-opens the connection to the API host when nothing has used
+	 * it lately. That covers connecting, coming back from logout / minimise (the first tick after
+	 * polling resumes) and quiet spells where the shared cache or a party leader answers our polls,
+	 * so a roll never has to set up a connection first.
+	 */
+	private void keepConnectionWarm()
+	{
+		SnakesApiClient api = this.api;
+		SnakesScheduler scheduler = this.scheduler;
+		if (api == null || scheduler == null || !api.hasGameId() || api.isReplay() || !api.isCold()) return;
+		if (!isClientActive() || !prewarming.compareAndSet(false, true)) return;
+
+		String etag = poller != null ? poller.boardEtag() : null;
+		try
+		{
+			scheduler.execute(SnakesScheduler.Priority.NORMAL, () ->
 			{
-				tileInfoBox.setTooltipLines(
-					"Tile " + snap.tileIndex + (snap.tileKind != null && !snap.tileKind.isEmpty() ? " (" + snap.tileKind + ")" : ""),
-					snap.tileTitle,
-					snap.tileDescription == null ? "" : snap.tileDescription,
-					snap.awaitingProof ? "Proof required" : ""
-				);
+				try
+				{
+					api.prewarm(etag);
+				}
+				catch (Exception ex)
+				{
+					log.debug("Connection prewarm failed", ex);
+				}
+				finally
+				{
+					prewarming.set(false);
+				}
+			});
+		}
+		catch (RejectedExecutionException ex)
+		{
+			prewarming.set(false);
+		}
+	}
+
+	/**
+	 * Posts queued standings news as one chat line; news about us also raises a notification.
+	 */
+	private void flushFeed()
+	{
+		boolean aboutUs = feed.isAboutUs();
+		String line = feed.flush(System.currentTimeMillis());
+		if (line == null) return;
+
+		client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", "Snakes & Ladders: " + line, null);
+		if (aboutUs) notifier.notify("Snakes & Ladders: " + line);
+	}
+
+	private void refreshTileTooltip()
+	{
+		OverlayModel m = model.get();
+		OverlaySnapshot snap = m.snapshot;
+		if (tileInfoBox == null || snap == null) return;
+
+		if (snap.tileTitle != null && !snap.tileTitle.isEmpty())
+		{
+			tileInfoBox.setTooltipLines(
+				"Tile " + snap.tileIndex + (snap.tileKind != null && !snap.tileKind.isEmpty() ? " (" + snap.tileKind + ")" : ""),
+				snap.tileTitle,
+				snap.tileDescription == null ? "" : snap.tileDescription,
+				itemTracker.describe(),
+				progressTracker.describe(),
+				describeRollsLeft(m.rollsLeft(snap.tileIndex)),
+				snap.awaitingProof ? "Proof required" : ""
+			);
+		}
+		else
+		{
+			tileInfoBox.setTooltipLines("Snakes & Ladders", "Waiting for tile…");
+		}
+	}
+
+	private static String describeRollsLeft(double r)
+	{
+		if (Double.isNaN(r) || Double.isInfinite(r)) return "";
+		return String.format("Expected %.1f rolls left", r);
+	}
+
+	/**
+	 * Recompiles item requirements when our tile (or the board) changes. Runs on the client
+	 * thread, so the current inventory can be read for the baseline.
+	 */
+	private void syncTileTrackers(SnakesApiClient api, OverlaySnapshot snap)
+	{
+		OverlayModel m = model.get();
+		if (snap.tileIndex == itemTracker.getTileIndex() && m.board == trackedBoard) return;
+		trackedBoard = m.board;
+		progressGameId = api.getGameId();
+
+		BoardDto.Tile tile = m.boardTile(snap.tileIndex);
+		ItemContainer inv = client.getItemContainer(InventoryID.INVENTORY);
+		int n = inv == null ? 0 : copyItems(inv.getItems());
+		itemTracker.reset(snap.tileIndex, tile, Arrays.copyOf(invIds, n), Arrays.copyOf(invQty, n));
+
+		progressTracker.reset(snap.tileIndex, tile, configManager.getConfiguration(PROGRESS_GROUP, progressKey()));
+		clearStaleProgress();
+		if (progressTracker.hasRequirement())
+		{
+			// first activation: take the xp baseline now if we're logged in
+			for (Skill skill : Skill.values())
+			{
+				if (progressTracker.onXp(skill, client.getSkillExperience(skill))) saveProgress();
 			}
-			else
+		}
+		shownPercent = -1;
+		refreshProgressText();
+	}
+
+	private String progressKey()
+	{
+		return progressGameId + "_" + progressTracker.getTileIndex();
+	}
+
+	private void saveProgress()
+	{
+		if (progressGameId.isEmpty() || progressTracker.getTileIndex() < 0) return;
+		configManager.setConfiguration(PROGRESS_GROUP, progressKey(), progressTracker.save());
+	}
+
+	/**
+	 * Only the current tile of the current game can still need its progress; everything else
+	 * saved (earlier tiles, other games) is removed whenever that changes.
+	 */
+	private void clearStaleProgress()
+	{
+		String keep = progressKey();
+		if (keep.equals(progressKeyKept)) return;
+		progressKeyKept = keep;
+
+		unsetKeys(PROGRESS_GROUP, "", keep);
+		// progress used to be saved in the settings group as progress_<game>_<tile>
+		unsetKeys(SnakesLaddersConfig.GROUP, "progress_", null);
+	}
+
+	private void unsetKeys(String group, String prefix, String keep)
+	{
+		List<String> keys = configManager.getConfigurationKeys(group + "." + prefix);
+		if (keys == null) return;
+		for (String k : keys)
+		{
+			String key = k.substring(group.length() + 1);
+			if (!key.equals(keep)) configManager.unsetConfiguration(group, key);
+		}
+	}
+
+	/**
+	 * Shows xp / kc progress as InfoBox text. Only touches the InfoBox when the whole percentage changes.
+	 */
+	private void refreshProgressText()
+	{
+		int pct = progressTracker.percent();
+		if (pct == shownPercent) return;
+		shownPercent = pct;
+
+		if (tileInfoBox != null && pct >= 0)
+		{
+			tileInfoBox.setText(pct + "%");
+			refreshTileTooltip();
+		}
+
+		if (pct >= 100) promptProof(progressTracker.getTileIndex());
+	}
+
+	@Subscribe
+	public void onStatChanged(StatChanged ev)
+	{
+		if (progressTracker.onXp(ev.getSkill(), ev.getXp())) saveProgress();
+		if (progressTracker.hasRequirement()) refreshProgressText();
+	}
+
+	/**
+	 * Copies container items into the reusable id/qty buffers.
+	 */
+	private int copyItems(Item[] items)
+	{
+		if (items.length > invIds.length)
+		{
+			invIds = new int[items.length];
+			invQty = new int[items.length];
+		}
+		for (int i = 0; i < items.length; i++)
+		{
+			invIds[i] = items[i].getId();
+			invQty[i] = items[i].getQuantity();
+		}
+		return items.length;
+	}
+
+	@Subscribe
+	public void onLootReceived(LootReceived ev)
+	{
+		if (!itemTracker.hasRequirements()) return;
+
+		boolean changed = false;
+		for (ItemStack stack : ev.getItems())
+		{
+			changed |= itemTracker.onLoot(stack.getId(), stack.getQuantity());
+		}
+		if (changed) onItemProgress();
+	}
+
+	@Subscribe
+	public void onItemSpawned(ItemSpawned ev)
+	{
+		if (!itemTracker.hasRequirements()) return;
+
+		TileItem item = ev.getItem();
+		if (item.getOwnership() != TileItem.OWNERSHIP_SELF) return;
+		if (itemTracker.onSpawned(item.getId(), item.getQuantity(), client.getTickCount())) onItemProgress();
+	}
+
+	@Subscribe
+	public void onItemContainerChanged(ItemContainerChanged ev)
+	{
+		// bank and other containers fire constantly; only the inventory counts as "obtained"
+		if (ev.getContainerId() != InventoryID.INVENTORY.getId() || !itemTracker.hasRequirements()) return;
+
+		int n = copyItems(ev.getItemContainer().getItems());
+		if (itemTracker.onInventory(invIds, invQty, n, client.getTickCount())) onItemProgress();
+	}
+
+	/**
+	 * Hands board / standings to the panel's board view, only when they actually changed.
+	 */
+	private void pushBoardToPanel()
+	{
+		SnakesLaddersPanel p = panel;
+		if (p == null) return;
+
+		OverlayModel m = model.get();
+		BoardDto b = m.board;
+		Map<String, Integer> st = m.standings;
+		int own = m.ownTile();
+		if (b == panelBoard && st == panelStandings && own == panelOwnTile) return;
+
+		boolean newBoard = b != panelBoard;
+		panelBoard = b;
+		panelStandings = st;
+		panelOwnTile = own;
+
+		TileImageCache images = tileImageCache;
+		SwingUtilities.invokeLater(() ->
+		{
+			if (newBoard) p.setBoard(b, images);
+			p.setStandings(st, own);
+		});
+
+		updateWinChances(p, b, st);
+	}
+
+	/**
+	 * Re-runs the win simulation when the board or any team's tile changed (not on every poll).
+	 * Requests made while one is queued replace it, and a result older than the latest request
+	 * is dropped.
+	 */
+	private void updateWinChances(SnakesLaddersPanel p, BoardDto b, Map<String, Integer> st)
+	{
+		if (b == simBoard && (st == null ? simStandings == null : st.equals(simStandings))) return;
+		simBoard = b;
+		simStandings = st;
+		int generation = ++simGeneration;
+
+		SnakesScheduler scheduler = this.scheduler;
+		if (b == null || st == null || st.isEmpty() || scheduler == null)
+		{
+			SwingUtilities.invokeLater(() -> p.setWinChances(null));
+			return;
+		}
+
+		BoardMoves moves = BoardMoves.of(b, config.tileMinutes());
+		String[] teams = new String[st.size()];
+		int[] positions = new int[teams.length];
+		int i = 0;
+		for (Map.Entry<String, Integer> e : st.entrySet())
+		{
+			teams[i] = e.getKey();
+			Integer tile = e.getValue();
+			positions[i++] = tile == null ? 0 : Math.max(0, Math.min(moves.size, tile));
+		}
+
+		OverlaySnapshot snap = model.get().snapshot;
+		double horizon = snap != null && snap.endTime != null
+			? Math.max(0, Duration.between(Instant.now(), snap.endTime).getSeconds() / 60.0)
+			: Double.POSITIVE_INFINITY;
+
+		Runnable job = () ->
+		{
+			if (generation != simGeneration || scheduler.isShutdown()) return;
+			long start = System.nanoTime();
+			int trials = WinSimulator.trialsFor(moves, teams.length);
+			WinSimulator.Result result = WinSimulator.run(moves, teams, positions, horizon, trials, scheduler.compute(), System.nanoTime());
+			log.debug("Simulated {} games for {} teams in {} ms", trials, teams.length, (System.nanoTime() - start) / 1_000_000);
+			if (generation == simGeneration) SwingUtilities.invokeLater(() -> p.setWinChances(result));
+		};
+
+		if (pendingSim.getAndSet(job) != null) return;
+		try
+		{
+			scheduler.execute(SnakesScheduler.Priority.LOW, () ->
 			{
-				tileInfoBox.setTooltipLines("Snakes & Ladders", "Waiting for tile…");
+				Runnable r = pendingSim.getAndSet(null);
+				if (r != null) r.run();
+			});
+		}
+		catch (RejectedExecutionException ex)
+		{
+			pendingSim.set(null);
+		}
+	}
+
+	/**
+	 * The latest published state; safe to read from any thread.
+	 */
+	OverlayModel getModel()
+	{
+		return model.get();
+	}
+
+	@Subscribe
+	public void onChatMessage(ChatMessage ev)
+	{
+		if (ev.getType() == ChatMessageType.GAMEMESSAGE && progressTracker.hasRequirement() && ev.getMessage().startsWith("Your "))
+		{
+			if (progressTracker.onChat(Text.removeTags(ev.getMessage())))
+			{
+				saveProgress();
+				refreshProgressText();
 			}
 		}
+
+		OverlaySnapshot snap = model.get().snapshot;
+		if (snap == null || !snap.awaitingProof || promptedTile == snap.tileIndex) return;
+		if (!config.detectCompletions()) return;
+
+		switch (ev.getType())
+		{
+			case GAMEMESSAGE:
+			case SPAM:
+				break;
+			case CLAN_MESSAGE:
+			case CLAN_GIM_MESSAGE:
+				// clan broadcasts are about anyone; only ours count
+				if (localRsn.isEmpty() || !ev.getMessage().regionMatches(true, 0, localRsn, 0, localRsn.length())) return;
+				break;
+			default:
+				return;
+		}
+
+		int tile = chatMatcher.match(ev.getMessage(), snap.tileIndex);
+		if (tile != snap.tileIndex) return;
+
+		promptProof(tile);
 	}
 
-	private static String statusFromPhase(String phase, boolean awaitingProof)
+	/**
+	 * Something we track says the current tile is done; nudge the player (once per tile).
+	 */
+	private void promptProof(int tile)
+	{
+		OverlaySnapshot snap = model.get().snapshot;
+		if (snap == null || !snap.awaitingProof || snap.tileIndex != tile || promptedTile == tile) return;
+
+		promptedTile = tile;
+		client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", "Snakes & Ladders: Looks like tile " + tile + " is done - submit your proof!", null);
+
+		if (config.autoCaptureProof())
+		{
+			captureProof();
+		}
+	}
+
+	private void onItemProgress()
+	{
+		refreshTileTooltip();
+		if (itemTracker.isComplete()) promptProof(itemTracker.getTileIndex());
+	}
+
+	static String statusFromPhase(String phase, boolean awaitingProof)
 	{
 		if (awaitingProof) return "Awaiting proof";
 		if (phase == null) return "Connected";
@@ -446,7 +1071,7 @@ public class SnakesLaddersPlugin extends Plugin
 		return "Connected";
 	}
 
-	private String computeCountdownText(OverlaySnapshot snap)
+	static String computeCountdownText(OverlaySnapshot snap)
 	{
 		Instant now = Instant.now();
 		Instant target;
@@ -486,19 +1111,15 @@ public class SnakesLaddersPlugin extends Plugin
 	{
 		if (panel == null) return;
 
-		String token = config.jwtToken();
-		if (token == null || token.trim().isEmpty())
+		SnakesApiClient api = this.api;
+		if (api == null || !api.hasJwt())
 		{
 			panel.setStatus("No team token (join via web)");
 			panel.setCanRoll(false);
 			return;
 		}
 
-		String baseUrl = config.apiBaseUrl();
-		String gameId = config.gameId();
-		String webhook = config.discordWebhookUrl();
-
-		if (gameId == null || gameId.trim().isEmpty())
+		if (!api.hasGameId())
 		{
 			panel.setStatus("Not connected");
 			return;
@@ -506,7 +1127,7 @@ public class SnakesLaddersPlugin extends Plugin
 
 		try
 		{
-			String json = SnakesApi.roll(baseUrl, gameId, webhook, token);
+			String json = api.roll();
 			JsonObject root = gson.fromJson(json, JsonObject.class);
 
 			int roll = root.has("roll") ? root.get("roll").getAsInt() : 0;
@@ -515,11 +1136,13 @@ public class SnakesLaddersPlugin extends Plugin
 
 			boolean awaiting = root.has("awaitingProof") && root.get("awaitingProof").getAsBoolean();
 
-			panel.setTile(to);
+			panel.setTile(to, model.get().rollsLeft(to));
 			panel.setAwaitingProof(awaiting);
 			panel.setStatus(awaiting ? "Awaiting proof" : "Running");
 			panel.setCanRoll(!awaiting);
 
+			addHistory(EventHistory.Type.ROLL, from, to, "rolled " + roll);
+
 			client.addChatMessage(ChatMessageType.GAMEMESSAGE, "", "Snakes & Ladders: Rolled " + roll + " (" + from + " → " + to + ")", null);
 		}
 		catch (Exception ex)
@@ -534,18 +1157,14 @@ public class SnakesLaddersPlugin extends Plugin
 	{
 		if (panel == null) return;
 
-		String token = config.jwtToken();
-		if (token == null || token.trim().isEmpty())
+		SnakesApiClient api = this.api;
+		if (api == null || !api.hasJwt())
 		{
 			panel.setStatus("No team token (join via web)");
 			return;
 		}
 
-		String baseUrl = config.apiBaseUrl();
-		String gameId = config.gameId();
-		String webhook = config.discordWebhookUrl();
-
-		if (gameId == null || gameId.trim().isEmpty())
+		if (!api.hasGameId())
 		{
 			panel.setStatus("Not connected");
 			return;
@@ -556,36 +1175,319 @@ public class SnakesLaddersPlugin extends Plugin
 
 		try
 		{
-			String json = SnakesApi.submitProof(baseUrl, gameId, webhook, token, proofUrl.trim());
-			JsonObject root = gson.fromJson(json, JsonObject.class);
+			String json = api.submitProof(proofUrl.trim());
+			addHistory(EventHistory.Type.PROOF_SUBMITTED, -1, model.get().ownTile(), proofUrl.trim());
+			applyProofResult(panel, gson.fromJson(json, JsonObject.class));
+		}
+		catch (Exception ex)
+		{
+			log.warn("Proof error", ex);
+			panel.setStatus("Proof error");
+		}
+	}
+
+	/**
+	 * One-click proof: grabs the next rendered frame, then encodes and uploads it on the proof thread.
+	 */
+	private void captureProof()
+	{
+		if (panel == null) return;
+
+		SnakesApiClient api = this.api;
+		if (api == null || !api.hasJwt())
+		{
+			panel.setStatus("No team token (join via web)");
+			return;
+		}
+
+		if (!api.hasGameId())
+		{
+			panel.setStatus("Not connected");
+			return;
+		}
+
+		SnakesScheduler scheduler = this.scheduler;
+		if (scheduler == null) return;
+		if (!proofUploading.compareAndSet(false, true)) return;
 
-			if (root.has("finished") && root.get("finished").getAsBoolean())
+		SnakesLaddersPanel p = panel;
+		SnakesLaddersConfig.ProofFormat format = config.proofFormat();
+		int maxWidth = config.proofMaxWidth();
+
+		SwingUtilities.invokeLater(() -> p.setProofProgress("Capturing…", -1));
+		drawManager.requestNextFrameListener(image ->
+		{
+			// Only take the frame and where the scene and chat are; the draw callback must stay cheap
+			BufferedImage frame = ImageUtil.bufferedImageFromImage(image);
+			Rectangle scene = toFrame(frame, new Rectangle(client.getViewportXOffset(), client.getViewportYOffset(),
+				client.getViewportWidth(), client.getViewportHeight()));
+			Widget messages = client.getWidget(ComponentID.CHATBOX_MESSAGES);
+			Rectangle chat = messages == null || messages.isHidden() ? null : toFrame(frame, messages.getBounds());
+			try
 			{
-				String winner = root.has("winner") ? root.get("winner").getAsString() : "Unknown";
-				panel.setStatus("Ended - Winner: " + winner);
+				scheduler.execute(SnakesScheduler.Priority.HIGH,
+					() -> uploadProof(api, p, frame, ProofImages.hash(frame, scene, chat), format, maxWidth, false));
 			}
-			else
+			catch (RejectedExecutionException ex)
 			{
-				panel.setStatus("Proof submitted");
+				proofUploading.set(false);
+				SwingUtilities.invokeLater(p::clearProofProgress);
 			}
+		});
+	}
 
-			panel.setAwaitingProof(false);
-			panel.setCanRoll(false);
+	/**
+	 * Canvas coordinates to frame pixels; the frame is the stretched size in stretched mode.
+	 */
+	private Rectangle toFrame(BufferedImage frame, Rectangle canvas)
+	{
+		double sx = frame.getWidth() / (double) Math.max(1, client.getCanvasWidth());
+		double sy = frame.getHeight() / (double) Math.max(1, client.getCanvasHeight());
+		return new Rectangle((int) (canvas.x * sx), (int) (canvas.y * sy), (int) (canvas.width * sx), (int) (canvas.height * sy));
+	}
+
+	/**
+	 * Worker: check the hash against earlier proofs, then encode and upload. A likely duplicate
+	 * is handed to the EDT to confirm before anything is encoded or sent; the upload stays in
+	 * progress until the user answers.
+	 */
+	private void uploadProof(SnakesApiClient api, SnakesLaddersPanel p, BufferedImage frame, ProofImages.Hash hash,
+		SnakesLaddersConfig.ProofFormat format, int maxWidth, boolean allowDuplicate)
+	{
+		boolean awaitingConfirm = false;
+		try
+		{
+			ProofIndex index = proofIndex(api.getGameId());
+			if (!allowDuplicate && config.flagDuplicateProofs())
+			{
+				ProofIndex.Match match = index.findNear(hash);
+				if (match != null)
+				{
+					awaitingConfirm = true;
+					SwingUtilities.invokeLater(() -> confirmDuplicateProof(api, p, frame, hash, format, maxWidth, match));
+					return;
+				}
+			}
+
+			SwingUtilities.invokeLater(() -> p.setProofProgress("Encoding…", -1));
+			ProofImages.Encoded encoded = ProofImages.encode(frame, format, maxWidth);
+
+			long total = Math.max(1, encoded.bytes.length);
+			int[] lastPercent = {-1};
+			String json = api.uploadProof(encoded.bytes, encoded.contentType, encoded.fileName, sent ->
+			{
+				int percent = (int) Math.min(100, sent * 100 / total);
+				if (percent == lastPercent[0]) return;
+				lastPercent[0] = percent;
+				SwingUtilities.invokeLater(() -> p.setProofProgress("Uploading " + percent + "%", percent));
+			});
+
+			JsonObject root = gson.fromJson(json, JsonObject.class);
+			int tile = model.get().ownTile();
+			index.add(hash, tile);
+			addHistory(EventHistory.Type.PROOF_SUBMITTED, -1, tile, "screenshot");
+			SwingUtilities.invokeLater(() -> applyProofResult(p, root));
 		}
 		catch (Exception ex)
 		{
-			log.warn("Proof error", ex);
-			panel.setStatus("Proof error");
+			log.warn("Proof upload error", ex);
+			SwingUtilities.invokeLater(() -> p.setStatus("Proof upload error"));
+		}
+		finally
+		{
+			if (!awaitingConfirm)
+			{
+				proofUploading.set(false);
+				SwingUtilities.invokeLater(p::clearProofProgress);
+			}
 		}
 	}
 
+	/**
+	 * EDT: the screenshot matches an earlier proof; upload it only if the user says so.
+	 */
+	private void confirmDuplicateProof(SnakesApiClient api, SnakesLaddersPanel p, BufferedImage frame, ProofImages.Hash hash,
+		SnakesLaddersConfig.ProofFormat format, int maxWidth, ProofIndex.Match match)
+	{
+		p.clearProofProgress();
+		long minutes = Duration.ofMillis(System.currentTimeMillis() - match.timeMs).toMinutes();
+		String when = minutes < 90 ? minutes + " min ago" : (minutes / 60) + " h ago";
+		String tile = match.tile >= 0 ? "tile " + match.tile : "an earlier tile";
+		int answer = JOptionPane.showConfirmDialog(p,
+			"This screenshot looks like the proof already submitted for " + tile + " (" + when + ").\nUpload it anyway?",
+			"Possible duplicate proof", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+
+		SnakesScheduler scheduler = this.scheduler;
+		if (answer == JOptionPane.YES_OPTION && scheduler != null)
+		{
+			try
+			{
+				p.setProofProgress("Encoding…", -1);
+				scheduler.execute(SnakesScheduler.Priority.HIGH, () -> uploadProof(api, p, frame, hash, format, maxWidth, true));
+				return;
+			}
+			catch (RejectedExecutionException ex)
+			{
+				p.clearProofProgress();
+			}
+		}
+		else
+		{
+			p.setStatus("Duplicate proof not uploaded");
+		}
+		proofUploading.set(false);
+	}
+
+	/**
+	 * Worker: the hash index for {@code gameId}, read from disk the first time it's needed.
+	 * Only the proof upload uses it, and only one upload runs at a time.
+	 */
+	private ProofIndex proofIndex(String gameId)
+	{
+		ProofIndex index = proofIndex;
+		if (index == null || !index.gameId.equals(gameId == null ? "" : gameId))
+		{
+			index = new ProofIndex(new File(RuneLite.RUNELITE_DIR, "snakesladders"), gameId);
+			proofIndex = index;
+		}
+		return index;
+	}
+
+	private void recordOverlayEvents(OverlaySnapshot prev, OverlaySnapshot snap, String etag)
+	{
+		addHistory(EventHistory.Type.OVERLAY_REVISION, -1, snap.tileIndex, etag);
+		if (prev == null) return;
+
+		if (!snap.phase.equalsIgnoreCase(prev.phase))
+		{
+			addHistory(EventHistory.Type.PHASE_CHANGED, -1, snap.tileIndex, snap.phase);
+		}
+		if (prev.awaitingProof && !snap.awaitingProof && prev.tileIndex == snap.tileIndex)
+		{
+			addHistory(EventHistory.Type.PROOF_ACCEPTED, -1, snap.tileIndex, "");
+			if (config.standingsFeed()) feed.onProofApproved(snap.tileIndex);
+		}
+	}
+
+	private void addHistory(EventHistory.Type type, int from, int to, String detail)
+	{
+		history.add(type, from, to, detail);
+		SnakesLaddersPanel p = panel;
+		if (p != null) SwingUtilities.invokeLater(p::historyChanged);
+	}
+
+	private Diagnostics.Sample measureFootprint()
+	{
+		SnakesApiClient api = this.api;
+		return Diagnostics.measure(tileImageCache, history, model.get(), services == null ? null : services.sharedCache(), scheduler, api == null ? null : api.apiUri());
+	}
+
+	/**
+	 * Worker: periodic sample, warning once in chat when the plugin goes over its memory budget.
+	 */
+	private void sampleFootprint()
+	{
+		Diagnostics.Sample s = measureFootprint();
+		long budget = config.memoryBudgetMb() * 1024L * 1024L;
+		if (!diagnostics.record(s, budget)) return;
+
+		log.warn("Snakes & Ladders is holding {} bytes, over its {} MB budget", s.heapBytes(), config.memoryBudgetMb());
+		clientThread.invokeLater(() -> client.addChatMessage(ChatMessageType.GAMEMESSAGE, "",
+			"Snakes & Ladders: using more memory than its " + config.memoryBudgetMb() + " MB budget - see Diagnostics in the panel", null));
+	}
+
+	/**
+	 * EDT: measure on a worker, then show the report.
+	 */
+	private void showDiagnostics()
+	{
+		SnakesLaddersPanel p = panel;
+		SnakesScheduler scheduler = this.scheduler;
+		if (p == null || scheduler == null) return;
+
+		long budget = config.memoryBudgetMb() * 1024L * 1024L;
+		try
+		{
+			scheduler.execute(SnakesScheduler.Priority.HIGH, () ->
+			{
+				String report = diagnostics.report(measureFootprint(), budget);
+				SwingUtilities.invokeLater(() ->
+				{
+					JTextArea text = new JTextArea(report);
+					text.setEditable(false);
+					text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
+					JOptionPane.showMessageDialog(p, text, "Snakes & Ladders diagnostics", JOptionPane.INFORMATION_MESSAGE);
+				});
+			});
+		}
+		catch (RejectedExecutionException ex)
+		{
+			p.setStatus("Diagnostics unavailable");
+		}
+	}
+
+	/**
+	 * EDT: pick a file, then stream the history to it on the background thread.
+	 */
+	private void exportHistory()
+	{
+		SnakesLaddersPanel p = panel;
+		if (p == null) return;
+
+		JFileChooser chooser = new JFileChooser();
+		chooser.setSelectedFile(new File("snakes-history.ndjson"));
+		if (chooser.showSaveDialog(p) != JFileChooser.APPROVE_OPTION) return;
+
+		SnakesScheduler scheduler = this.scheduler;
+		if (scheduler == null) return;
+
+		Path file = chooser.getSelectedFile().toPath();
+		p.setStatus("Exporting history…");
+		try
+		{
+			scheduler.execute(SnakesScheduler.Priority.LOW, () ->
+			{
+				try
+				{
+					int n = history.export(file);
+					SwingUtilities.invokeLater(() -> p.setStatus("Exported " + n + " events"));
+				}
+				catch (Exception ex)
+				{
+					log.warn("History export error", ex);
+					SwingUtilities.invokeLater(() -> p.setStatus("Export failed"));
+				}
+			});
+		}
+		catch (RejectedExecutionException ex)
+		{
+			p.setStatus("Export failed");
+		}
+	}
+
+	private static void applyProofResult(SnakesLaddersPanel panel, JsonObject root)
+	{
+		if (root != null && root.has("finished") && root.get("finished").getAsBoolean())
+		{
+			String winner = root.has("winner") ? root.get("winner").getAsString() : "Unknown";
+			panel.setStatus("Ended - Winner: " + winner);
+		}
+		else
+		{
+			panel.setStatus("Proof submitted");
+		}
+
+		panel.setAwaitingProof(false);
+		panel.setCanRoll(false);
+	}
+
 	@Provides
 	SnakesLaddersConfig provideConfig(ConfigManager configManager)
 	{
 		return configManager.getConfig(SnakesLaddersConfig.class);
 	}
 
-	private static final class OverlaySnapshot
+	static final class OverlaySnapshot
 	{
 		final String phase;
 		final Instant startTime;
@@ -597,6 +1499,7 @@ public class SnakesLaddersPlugin extends Plugin
 		final String tileDescription;
 
 		final boolean awaitingProof;
+		final String boardRevision;
 
 		private OverlaySnapshot(
 			String phase,
@@ -606,7 +1509,8 @@ public class SnakesLaddersPlugin extends Plugin
 			String tileKind,
 			String tileTitle,
 			String tileDescription,
-			boolean awaitingProof
+			boolean awaitingProof,
+			String boardRevision
 		)
 		{
 			this.phase = phase;
@@ -617,6 +1521,7 @@ public class SnakesLaddersPlugin extends Plugin
 			this.tileTitle = tileTitle;
 			this.tileDescription = tileDescription;
 			this.awaitingProof = awaitingProof;
+			this.boardRevision = boardRevision;
 		}
 
 		static OverlaySnapshot fromJson(JsonObject root)
@@ -635,7 +1540,9 @@ public class SnakesLaddersPlugin extends Plugin
 			JsonObject flags = root.has("flags") && root.get("flags").isJsonObject() ? root.getAsJsonObject("flags") : null;
 			boolean awaiting = flags != null && flags.has("awaitingProof") && flags.get("awaitingProof").getAsBoolean();
 
-			return new OverlaySnapshot(phase, start, end, tileIndex, kind, title, desc, awaiting);
+			String boardRevision = root.has("boardRevision") && !root.get("boardRevision").isJsonNull() ? root.get("boardRevision").getAsString() : "";
+
+			return new OverlaySnapshot(phase, start, end, tileIndex, kind, title, desc, awaiting, boardRevision);
 		}
 
 		private static Instant parseInstant(JsonObject root, String field)
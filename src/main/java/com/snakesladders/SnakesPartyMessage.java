@@ -0,0 +1,29 @@
+package com.snakesladders;
+
+import net.runelite.client.party.messages.PartyMemberMessage;
+
+import java.util.Map;
+
+/**
+ * Party websocket message for {@link PartySync}. With a null {@code body} it is just a presence
+ * heartbeat; otherwise it carries the sender's last /overlay response (and standings) tagged
+ * with its ETag.
+ */
+public class SnakesPartyMessage extends PartyMemberMessage
+{
+	String gameId;
+	// hash of game id + team token, never the token itself
+	String teamKey;
+	String etag;
+	String body;
+	Map<String, Integer> standings;
+
+	SnakesPartyMessage(String gameId, String teamKey, String etag, String body, Map<String, Integer> standings)
+	{
+		this.gameId = gameId;
+		this.teamKey = teamKey;
+		this.etag = etag;
+		this.body = body;
+		this.standings = standings;
+	}
+}
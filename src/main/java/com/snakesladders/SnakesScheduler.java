@@ -0,0 +1,362 @@
+package com.snakesladders;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * All background work the plugin does, owned by the plugin and torn down in one call.
+ *
+ * One timer thread only fires delays and hands the task over; two worker threads run
+ * everything by {@link Priority}, FIFO within a priority. The queue is bounded, and the
+ * HTTP client runs its internals on a small pool that is also shut down here, as do the
+ * log writer thread and CPU-bound simulation on a small fork-join pool. Threads are named
+ * "snakes-*", daemon, and only started when first needed.
+ */
+@Slf4j
+final class SnakesScheduler
+{
+	enum Priority
+	{
+		/** The player is waiting on it: rolls, proof upload. */
+		HIGH,
+		/** Overlay / board / standings polling. */
+		NORMAL,
+		/** Tile images, exports. */
+		LOW
+	}
+
+	static final int WORKERS = 2;
+	static final int MAX_QUEUED = 256;
+	// the client only hands completions and body handling to this pool; its selector is its own thread
+	static final int HTTP_THREADS = 4;
+	static final String THREAD_PREFIX = "snakes-";
+
+	private final ScheduledThreadPoolExecutor timer;
+	private final ThreadPoolExecutor workers;
+	private final ThreadPoolExecutor httpExecutor;
+	private final ThreadPoolExecutor writer;
+	private final AtomicLong seq = new AtomicLong();
+	// "host:port" -> count, so reuse can be reported for the API host alone
+	private final Map<String, AtomicLong> requests = new ConcurrentHashMap<>();
+	private final Map<String, AtomicLong> tlsConnections = new ConcurrentHashMap<>();
+
+	private HttpClient http;
+	private ForkJoinPool compute;
+	private volatile boolean shutdown;
+
+	SnakesScheduler()
+	{
+		timer = new ScheduledThreadPoolExecutor(1, factory("timer"));
+		timer.setRemoveOnCancelPolicy(true);
+		timer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+
+		workers = new ThreadPoolExecutor(WORKERS, WORKERS, 0, TimeUnit.MILLISECONDS,
+			new PriorityBlockingQueue<>(), factory("worker"));
+
+		httpExecutor = new ThreadPoolExecutor(HTTP_THREADS, HTTP_THREADS, 60, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<>(), factory("http"));
+		httpExecutor.allowCoreThreadTimeOut(true);
+
+		writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+			new LinkedBlockingQueue<>(MAX_QUEUED), factory("writer"));
+	}
+
+	/**
+	 * Runs {@code task} on a worker as soon as one is free.
+	 *
+	 * @throws RejectedExecutionException after {@link #shutdown} or when the queue is full
+	 */
+	void execute(Priority priority, Runnable task)
+	{
+		if (shutdown) throw new RejectedExecutionException("Scheduler shut down");
+		if (workers.getQueue().size() >= MAX_QUEUED) throw new RejectedExecutionException("Scheduler queue full");
+		workers.execute(new Job(priority, seq.getAndIncrement(), task));
+	}
+
+	/**
+	 * Runs {@code task} on a worker after {@code delayMs}. Cancelling the result before it fires
+	 * drops it; tasks rejected when they fire (queue full, shut down) are dropped too.
+	 */
+	ScheduledFuture<?> schedule(Priority priority, Runnable task, long delayMs)
+	{
+		if (shutdown) throw new RejectedExecutionException("Scheduler shut down");
+		return timer.schedule(() -> handOff(priority, task), delayMs, TimeUnit.MILLISECONDS);
+	}
+
+	ScheduledFuture<?> scheduleAtFixedRate(Priority priority, Runnable task, long initialMs, long periodMs)
+	{
+		if (shutdown) throw new RejectedExecutionException("Scheduler shut down");
+		return timer.scheduleAtFixedRate(() -> handOff(priority, task), initialMs, periodMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Runs {@code task} on the log writer thread, after everything handed to it before, so a
+	 * log's file is only ever touched from one thread. Unlike the workers, what's already
+	 * queued here still runs after {@link #shutdown}, so a log closed just before it ends whole.
+	 *
+	 * @throws RejectedExecutionException after {@link #shutdown}
+	 */
+	void write(Runnable task)
+	{
+		if (shutdown) throw new RejectedExecutionException("Scheduler shut down");
+		writer.execute(task);
+	}
+
+	private void handOff(Priority priority, Runnable task)
+	{
+		try
+		{
+			execute(priority, task);
+		}
+		catch (RejectedExecutionException ignored)
+		{
+			// shutting down, or backed up; periodic tasks get another go next period
+		}
+	}
+
+	/**
+	 * The plugin's HTTP client, created on first use. Its internal async work runs on a
+	 * scheduler-owned pool rather than the JDK default, so shutdown stops it too.
+	 */
+	synchronized HttpClient http()
+	{
+		if (shutdown) throw new RejectedExecutionException("Scheduler shut down");
+		if (http == null)
+		{
+			HttpClient.Builder b = HttpClient.newBuilder().executor(httpExecutor);
+			try
+			{
+				b.sslContext(CountingSslContext.wrap(SSLContext.getDefault(), (host, port) -> count(tlsConnections, origin(host, port))));
+			}
+			catch (NoSuchAlgorithmException ex)
+			{
+				// no default TLS context to wrap; the client picks its own and reuse goes unmeasured
+			}
+			http = b.build();
+		}
+		return http;
+	}
+
+	/**
+	 * Sends on the plugin's HTTP client, counting the request for the reuse figures.
+	 */
+	<T> HttpResponse<T> send(HttpRequest req, HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException
+	{
+		HttpClient client = http();
+		count(requests, origin(req.uri()));
+		return client.send(req, handler);
+	}
+
+	/**
+	 * Async send on the plugin's HTTP client, counted like {@link #send}.
+	 */
+	<T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest req, HttpResponse.BodyHandler<T> handler)
+	{
+		HttpClient client = http();
+		count(requests, origin(req.uri()));
+		return client.sendAsync(req, handler);
+	}
+
+	/**
+	 * Requests sent to the host and port of {@code uri}.
+	 */
+	long requestsSent(URI uri)
+	{
+		return read(requests, origin(uri));
+	}
+
+	/**
+	 * TLS connections opened to the host and port of {@code uri}; every other request to it went
+	 * over one already open. Always 0 for plain HTTP, whose connections can't be counted.
+	 */
+	long tlsConnectionsOpened(URI uri)
+	{
+		return read(tlsConnections, origin(uri));
+	}
+
+	static String origin(URI uri)
+	{
+		if (uri == null) return "";
+		int port = uri.getPort();
+		if (port < 0) port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+		return origin(uri.getHost(), port);
+	}
+
+	private static String origin(String host, int port)
+	{
+		return host == null ? "" : host.toLowerCase(Locale.ROOT) + ":" + port;
+	}
+
+	private static void count(Map<String, AtomicLong> counts, String origin)
+	{
+		counts.computeIfAbsent(origin, k -> new AtomicLong()).incrementAndGet();
+	}
+
+	private static long read(Map<String, AtomicLong> counts, String origin)
+	{
+		AtomicLong n = counts.get(origin);
+		return n == null ? 0 : n.get();
+	}
+
+	/**
+	 * Fork-join pool for CPU-bound work, created on first use. Leaves a core for the client.
+	 */
+	synchronized ForkJoinPool compute()
+	{
+		if (shutdown) throw new RejectedExecutionException("Scheduler shut down");
+		if (compute == null)
+		{
+			int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+			AtomicInteger n = new AtomicInteger();
+			compute = new ForkJoinPool(threads, pool ->
+			{
+				ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				t.setName(THREAD_PREFIX + "sim-" + n.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}, null, false);
+		}
+		return compute;
+	}
+
+	int queuedTasks()
+	{
+		return workers.getQueue().size();
+	}
+
+	/**
+	 * Threads currently in the HTTP client's pool. The JDK client doesn't expose its connection
+	 * pool, so this is the nearest thing it lets us count.
+	 */
+	int httpThreads()
+	{
+		return httpExecutor.getPoolSize();
+	}
+
+	synchronized int computeThreads()
+	{
+		return compute == null ? 0 : compute.getPoolSize();
+	}
+
+	boolean isShutdown()
+	{
+		return shutdown;
+	}
+
+	/**
+	 * Cancels everything pending, interrupts running tasks and stops every thread this
+	 * scheduler started; the writer thread first finishes what's queued for it. Does not wait.
+	 */
+	void shutdown()
+	{
+		shutdown = true;
+		timer.shutdownNow();
+		workers.shutdownNow();
+		httpExecutor.shutdownNow();
+		writer.shutdown();
+		HttpClient client;
+		synchronized (this)
+		{
+			client = http;
+			http = null;
+			if (compute != null) compute.shutdownNow();
+			compute = null;
+		}
+		shutdownNow(client);
+	}
+
+	/**
+	 * Stops the HTTP client's selector thread. HttpClient.shutdownNow() only exists from JDK 21;
+	 * on older runtimes the thread exits by itself within a few seconds of the client becoming
+	 * unreachable, so nothing here may keep a reference to it.
+	 */
+	private static void shutdownNow(HttpClient client)
+	{
+		if (client == null) return;
+		try
+		{
+			HttpClient.class.getMethod("shutdownNow").invoke(client);
+		}
+		catch (ReflectiveOperationException ex)
+		{
+			// older JDK
+		}
+	}
+
+	private static ThreadFactory factory(String role)
+	{
+		AtomicInteger n = new AtomicInteger();
+		return r ->
+		{
+			Thread t = new Thread(r, THREAD_PREFIX + role + "-" + n.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		};
+	}
+
+	private static final class Job extends FutureTask<Void> implements Comparable<Job>
+	{
+		private final Priority priority;
+		private final long seq;
+
+		Job(Priority priority, long seq, Runnable task)
+		{
+			super(task, null);
+			this.priority = priority;
+			this.seq = seq;
+		}
+
+		@Override
+		public int compareTo(Job o)
+		{
+			int c = priority.compareTo(o.priority);
+			return c != 0 ? c : Long.compare(seq, o.seq);
+		}
+
+		/**
+		 * Nobody reads a job's result, so a task that throws is logged here rather than lost.
+		 */
+		@Override
+		protected void done()
+		{
+			if (isCancelled()) return;
+			try
+			{
+				get();
+			}
+			catch (ExecutionException ex)
+			{
+				log.warn("{} background task failed", priority, ex.getCause());
+			}
+			catch (InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package com.snakesladders;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The plugin's background half: the scheduler every thread belongs to, and the HTTP trace,
+ * cross-client cache and traffic recorder the API client is built with. The plugin creates
+ * one in startUp and stops it in shutDown; none of it needs the game client.
+ */
+@Slf4j
+final class SnakesServices
+{
+	private final SnakesLaddersConfig config;
+	private final File dir;
+	private final SnakesScheduler scheduler = new SnakesScheduler();
+
+	private HttpTrace httpTrace;
+	private TrafficLog trafficLog;
+	private SharedCache sharedCache;
+
+	/**
+	 * @param dir where the trace, recordings and shared cache file go
+	 */
+	SnakesServices(SnakesLaddersConfig config, File dir)
+	{
+		this.config = config;
+		this.dir = dir;
+	}
+
+	SnakesScheduler scheduler()
+	{
+		return scheduler;
+	}
+
+	/** Null unless sharing across clients is on. */
+	synchronized SharedCache sharedCache()
+	{
+		return sharedCache;
+	}
+
+	/**
+	 * New client for the current config, starting or stopping the HTTP trace writer, the
+	 * cross-client cache and the traffic recorder to match.
+	 */
+	synchronized SnakesApiClient buildApi()
+	{
+		if (config.httpTrace() && httpTrace == null)
+		{
+			httpTrace = new HttpTrace(dir, scheduler);
+		}
+		else if (!config.httpTrace() && httpTrace != null)
+		{
+			httpTrace.close();
+			httpTrace = null;
+		}
+		if (config.shareAcrossClients() && sharedCache == null)
+		{
+			// nothing is mapped until the first request
+			sharedCache = new SharedCache(new File(dir, SharedCache.FILE_NAME));
+		}
+		else if (!config.shareAcrossClients() && sharedCache != null)
+		{
+			sharedCache.close();
+			sharedCache = null;
+		}
+		if (config.recordTraffic() && trafficLog == null)
+		{
+			trafficLog = new TrafficLog(dir, config.gameId(), scheduler);
+		}
+		else if (!config.recordTraffic() && trafficLog != null)
+		{
+			trafficLog.close();
+			trafficLog = null;
+		}
+
+		String replayFile = config.replayFile().trim();
+		if (!replayFile.isEmpty())
+		{
+			try
+			{
+				TrafficLog.Replay replay = TrafficLog.load(new File(replayFile));
+				log.info("Replaying {} recorded responses from {}", replay.size(), replayFile);
+				return SnakesApiClient.replaying(config, scheduler, replay, config.replaySpeed());
+			}
+			catch (IOException ex)
+			{
+				log.warn("Cannot replay {}: {}", replayFile, ex.getMessage());
+			}
+		}
+		return SnakesApiClient.fromConfig(config, scheduler, sharedCache, httpTrace, trafficLog);
+	}
+
+	/**
+	 * Closes the trace, recorder and cache, then stops the scheduler. The logs' last writes
+	 * are already queued on its writer thread by then, so they still finish.
+	 */
+	synchronized void shutdown()
+	{
+		if (httpTrace != null)
+		{
+			httpTrace.close();
+			httpTrace = null;
+		}
+		if (trafficLog != null)
+		{
+			trafficLog.close();
+			trafficLog = null;
+		}
+		if (sharedCache != null)
+		{
+			sharedCache.close();
+			sharedCache = null;
+		}
+		scheduler.shutdown();
+	}
+}
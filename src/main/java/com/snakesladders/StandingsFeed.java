@@ -0,0 +1,148 @@
+package com.snakesladders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns successive standings into short news lines ("Team X climbed a ladder to 57", "Team Y
+ * overtook you"), buffered and posted at most once per interval as a single line.
+ *
+ * Only notable moves are reported: ladders, snakes, finishing, and passing us. The diff is one
+ * pass over the new standings with a hash lookup per team and flag checks precomputed per board,
+ * so a large event costs microseconds per update. Client thread only.
+ */
+final class StandingsFeed
+{
+	static final long INTERVAL_MS = 10_000;
+	private static final int MAX_SHOWN = 3;
+
+	private final List<String> pending = new ArrayList<>();
+	private boolean pendingAboutUs;
+	private long lastFlushMs;
+
+	private BoardDto flagsBoard;
+	private boolean[] ladderTop = new boolean[0];
+	private boolean[] snakeTail = new boolean[0];
+
+	/**
+	 * Queues news for what changed between two published models.
+	 */
+	void onUpdate(OverlayModel prev, OverlayModel next)
+	{
+		Map<String, Integer> before = prev.standings;
+		Map<String, Integer> after = next.standings;
+		if (before == null || after == null || before == after || next.board == null) return;
+		// a new layout moves everyone; that's not news
+		if (prev.board != next.board) return;
+		if (next.board != flagsBoard) buildFlags(next.board);
+
+		int size = BoardLayout.sizeOf(next.board);
+		int ownBefore = prev.ownTile();
+		int ownAfter = next.ownTile();
+
+		for (Map.Entry<String, Integer> e : after.entrySet())
+		{
+			Integer from = before.get(e.getKey());
+			Integer to = e.getValue();
+			if (from == null || to == null || from.intValue() == to.intValue()) continue;
+
+			String team = e.getKey();
+			// we don't know our team's name, so a team that moved exactly as we did is taken to be us
+			if (ownAfter >= 0 && from == ownBefore && to == ownAfter) continue;
+
+			if (to >= size && from < size)
+			{
+				add(team + " finished!", false);
+			}
+			else if (to > from + BoardMoves.DIE && flag(ladderTop, to))
+			{
+				add(team + " climbed a ladder to " + to, false);
+			}
+			else if (to < from && flag(snakeTail, to))
+			{
+				add(team + " slid down a snake to " + to, false);
+			}
+
+			if (ownBefore >= 0 && ownAfter >= 0 && from <= ownBefore && to > ownAfter)
+			{
+				add(team + " overtook you (tile " + to + ")", true);
+			}
+		}
+	}
+
+	void onProofApproved(int tile)
+	{
+		add("Proof for tile " + tile + " approved", true);
+	}
+
+	/**
+	 * Everything queued since the last flush as one line, or null if there's nothing yet or the
+	 * interval hasn't passed.
+	 */
+	String flush(long now)
+	{
+		if (pending.isEmpty() || now - lastFlushMs < INTERVAL_MS) return null;
+		lastFlushMs = now;
+
+		StringBuilder sb = new StringBuilder();
+		int shown = Math.min(MAX_SHOWN, pending.size());
+		for (int i = 0; i < shown; i++)
+		{
+			if (i > 0) sb.append("; ");
+			sb.append(pending.get(i));
+		}
+		if (pending.size() > shown) sb.append(" (+").append(pending.size() - shown).append(" more)");
+
+		pending.clear();
+		pendingAboutUs = false;
+		return sb.toString();
+	}
+
+	/**
+	 * Whether anything queued since the last flush concerns us (worth a desktop notification).
+	 * Read before {@link #flush}.
+	 */
+	boolean isAboutUs()
+	{
+		return pendingAboutUs;
+	}
+
+	void clear()
+	{
+		pending.clear();
+		pendingAboutUs = false;
+	}
+
+	private void add(String line, boolean aboutUs)
+	{
+		// most important first, so they survive the "+N more" cut
+		if (aboutUs) pending.add(0, line);
+		else pending.add(line);
+		pendingAboutUs |= aboutUs;
+	}
+
+	private void buildFlags(BoardDto board)
+	{
+		int size = BoardLayout.sizeOf(board);
+		ladderTop = new boolean[size + 1];
+		snakeTail = new boolean[size + 1];
+		mark(ladderTop, board.ladders);
+		mark(snakeTail, board.snakes);
+		flagsBoard = board;
+	}
+
+	private static void mark(boolean[] flags, Map<Integer, Integer> jumps)
+	{
+		if (jumps == null) return;
+		for (Integer to : jumps.values())
+		{
+			if (to != null && to >= 0 && to < flags.length) flags[to] = true;
+		}
+	}
+
+	private static boolean flag(boolean[] flags, int tile)
+	{
+		return tile >= 0 && tile < flags.length && flags[tile];
+	}
+}
@@ -0,0 +1,296 @@
+package com.snakesladders;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Aho-Corasick automaton over every tile's requirement phrases, so one pass over a chat
+ * message finds matches for the whole board at once.
+ *
+ * Built once per board revision; {@link #match} does no allocation. Text is folded to
+ * a-z / 0-9 with every other run of characters collapsed to a single separator, and phrases
+ * are padded with separators so they only match on word boundaries.
+ */
+final class TileChatMatcher
+{
+	static final TileChatMatcher EMPTY = new TileChatMatcher(new ArrayList<>(), new ArrayList<>());
+
+	private static final int SEP = 0;
+	private static final int ALPHA = 37; // separator + a-z + 0-9
+
+	private static final int MIN_PHRASE_LENGTH = 4;
+	private static final int MAX_PHRASE_WORDS = 6;
+
+	// Leading words that describe the task rather than the thing that shows up in chat
+	private static final String[] TASK_WORDS = {
+		"obtain", "get", "receive", "loot", "collect", "kill", "complete", "any", "a", "an", "the", "1", "1x"
+	};
+
+	// goto function, fully expanded into a DFA: next[state * ALPHA + symbol]
+	private final int[] next;
+	// tiles whose phrase ends at state s: outputTiles[outputStart[s] .. outputStart[s + 1]), as
+	// several tiles can ask for the same boss or item
+	private final int[] outputStart;
+	private final int[] outputTiles;
+	// nearest proper suffix state that has an output, or -1
+	private final int[] outputLink;
+
+	private TileChatMatcher(List<String> phrases, List<Integer> tiles)
+	{
+		int maxStates = 1;
+		for (String p : phrases) maxStates += p.length() + 2;
+
+		int[] go = new int[maxStates * ALPHA];
+		Arrays.fill(go, -1);
+		// phrase i ends at state ends[i]
+		int[] ends = new int[phrases.size()];
+		int states = 1;
+
+		// trie
+		for (int i = 0; i < phrases.size(); i++)
+		{
+			String p = phrases.get(i);
+			int s = 0;
+			int prev = SEP;
+			s = step(go, s, SEP, states);
+			if (s == states) states++;
+			for (int c = 0; c < p.length(); c++)
+			{
+				int sym = symbol(p.charAt(c));
+				if (sym == SEP && prev == SEP) continue;
+				prev = sym;
+				int t = step(go, s, sym, states);
+				if (t == states) states++;
+				s = t;
+			}
+			if (prev != SEP)
+			{
+				int t = step(go, s, SEP, states);
+				if (t == states) states++;
+				s = t;
+			}
+			ends[i] = s;
+		}
+
+		next = Arrays.copyOf(go, states * ALPHA);
+		outputStart = new int[states + 1];
+		outputTiles = outputs(ends, tiles, outputStart);
+		outputLink = new int[states];
+		Arrays.fill(outputLink, -1);
+
+		// failure links via BFS, folding them into the goto table
+		int[] fail = new int[states];
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+		for (int sym = 0; sym < ALPHA; sym++)
+		{
+			int t = next[sym];
+			if (t < 0)
+			{
+				next[sym] = 0;
+			}
+			else
+			{
+				fail[t] = 0;
+				queue.add(t);
+			}
+		}
+
+		while (!queue.isEmpty())
+		{
+			int s = queue.poll();
+			int f = fail[s];
+			outputLink[s] = hasOutput(f) ? f : outputLink[f];
+
+			for (int sym = 0; sym < ALPHA; sym++)
+			{
+				int t = next[s * ALPHA + sym];
+				if (t < 0)
+				{
+					next[s * ALPHA + sym] = next[f * ALPHA + sym];
+				}
+				else
+				{
+					fail[t] = next[f * ALPHA + sym];
+					queue.add(t);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Groups the phrase tiles by end state (each tile once per state), filling {@code start}.
+	 */
+	private static int[] outputs(int[] ends, List<Integer> tiles, int[] start)
+	{
+		int states = start.length - 1;
+		List<List<Integer>> byState = new ArrayList<>(states);
+		for (int s = 0; s < states; s++) byState.add(null);
+		int total = 0;
+		for (int i = 0; i < ends.length; i++)
+		{
+			List<Integer> list = byState.get(ends[i]);
+			if (list == null)
+			{
+				list = new ArrayList<>(1);
+				byState.set(ends[i], list);
+			}
+			if (list.contains(tiles.get(i))) continue;
+			list.add(tiles.get(i));
+			total++;
+		}
+
+		int[] out = new int[total];
+		int n = 0;
+		for (int s = 0; s < states; s++)
+		{
+			start[s] = n;
+			List<Integer> list = byState.get(s);
+			if (list == null) continue;
+			for (int tile : list) out[n++] = tile;
+		}
+		start[states] = n;
+		return out;
+	}
+
+	private boolean hasOutput(int state)
+	{
+		return outputStart[state + 1] > outputStart[state];
+	}
+
+	private static int step(int[] go, int s, int sym, int newState)
+	{
+		int idx = s * ALPHA + sym;
+		if (go[idx] < 0) go[idx] = newState;
+		return go[idx];
+	}
+
+	/**
+	 * Compiles the requirement phrases of every tile on the board.
+	 */
+	static TileChatMatcher build(BoardDto board)
+	{
+		if (board == null || board.tiles == null || board.tiles.isEmpty()) return EMPTY;
+
+		List<String> phrases = new ArrayList<>();
+		List<Integer> tiles = new ArrayList<>();
+		for (BoardDto.Tile tile : board.tiles)
+		{
+			if (tile == null) continue;
+			addPhrases(tile.tileIndex, tile.title, phrases, tiles);
+			addPhrases(tile.tileIndex, tile.description, phrases, tiles);
+		}
+		return phrases.isEmpty() ? EMPTY : new TileChatMatcher(phrases, tiles);
+	}
+
+	/**
+	 * Splits free text into candidate item / boss phrases: comma, slash, "or" and line separated,
+	 * leading task verbs dropped, and anything that reads like prose skipped.
+	 */
+	private static void addPhrases(int tileIndex, String text, List<String> phrases, List<Integer> tiles)
+	{
+		if (text == null || text.trim().isEmpty()) return;
+
+		String lower = text.toLowerCase(Locale.ROOT);
+		int colon = lower.lastIndexOf(':');
+		if (colon >= 0) lower = lower.substring(colon + 1);
+
+		for (String part : lower.split("[,/;\\n]|\\bor\\b|\\band\\b"))
+		{
+			String p = stripTaskWords(part.replaceAll("[^a-z0-9]+", " ").trim());
+			if (p.length() < MIN_PHRASE_LENGTH) continue;
+			if (p.split(" ").length > MAX_PHRASE_WORDS) continue;
+			phrases.add(p);
+			tiles.add(tileIndex);
+		}
+	}
+
+	private static String stripTaskWords(String p)
+	{
+		boolean changed = true;
+		while (changed)
+		{
+			changed = false;
+			for (String w : TASK_WORDS)
+			{
+				if (p.startsWith(w + " "))
+				{
+					p = p.substring(w.length() + 1);
+					changed = true;
+				}
+			}
+		}
+		return p;
+	}
+
+	boolean isEmpty()
+	{
+		return outputTiles.length == 0;
+	}
+
+	/**
+	 * Scans a chat message (RuneLite tags like {@code <col=ff0000>} are skipped).
+	 *
+	 * @return {@code preferredTile} if one of its phrases appears, otherwise the first matching
+	 * tile index, or -1 for no match
+	 */
+	int match(String message, int preferredTile)
+	{
+		if (message == null || isEmpty()) return -1;
+
+		int state = next[SEP];
+		int prev = SEP;
+		int first = -1;
+		boolean inTag = false;
+
+		int len = message.length();
+		for (int i = 0; i <= len; i++)
+		{
+			int sym;
+			if (i == len)
+			{
+				sym = SEP;
+			}
+			else
+			{
+				char ch = message.charAt(i);
+				if (ch == '<')
+				{
+					inTag = true;
+					continue;
+				}
+				if (inTag)
+				{
+					if (ch == '>') inTag = false;
+					continue;
+				}
+				sym = symbol(ch);
+			}
+
+			if (sym == SEP && prev == SEP) continue;
+			prev = sym;
+			state = next[state * ALPHA + sym];
+
+			for (int s = hasOutput(state) ? state : outputLink[state]; s >= 0; s = outputLink[s])
+			{
+				for (int k = outputStart[s]; k < outputStart[s + 1]; k++)
+				{
+					int tile = outputTiles[k];
+					if (tile == preferredTile) return tile;
+					if (first < 0) first = tile;
+				}
+			}
+		}
+		return first;
+	}
+
+	private static int symbol(char ch)
+	{
+		if (ch >= 'a' && ch <= 'z') return ch - 'a' + 1;
+		if (ch >= 'A' && ch <= 'Z') return ch - 'A' + 1;
+		if (ch >= '0' && ch <= '9') return ch - '0' + 27;
+		return SEP;
+	}
+}
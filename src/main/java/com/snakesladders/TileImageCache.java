@@ -1,44 +1,231 @@
 package com.snakesladders;
 
+import lombok.extern.slf4j.Slf4j;
+
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
+@Slf4j
 public class TileImageCache
 {
-	private static final HttpClient HTTP = HttpClient.newBuilder().build();
+	private static final String ATLAS_KEY = "atlas|";
+	// grows to fit the board being shown, so loading it doesn't evict its own tiles
+	private static final int MIN_CAPACITY = 64;
+	private static final int MAX_CAPACITY = 1024;
+	// tile images in flight at once; each window is one worker job, the rest queue behind it
+	private static final int WINDOW = 6;
+	private static final long RETRY_MS = 2_000;
+	private static final Duration TIMEOUT = Duration.ofSeconds(20);
 
-	private final ExecutorService pool = Executors.newFixedThreadPool(2);
+	private final SnakesScheduler scheduler;
+	private int capacity = MIN_CAPACITY;
 
 	private final Map<String, BufferedImage> lru = new LinkedHashMap<>(64, 0.75f, true)
 	{
 		@Override
 		protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest)
 		{
-			return size() > 64;
+			return size() > capacity;
 		}
 	};
 
+	public TileImageCache(SnakesScheduler scheduler)
+	{
+		this.scheduler = scheduler;
+	}
+
 	public synchronized BufferedImage getIfPresent(String key)
 	{
 		return lru.get(key);
 	}
 
+	/**
+	 * Decoded pixel bytes held by the cache (what the images actually retain, not the PNG size).
+	 */
+	public synchronized long retainedBytes()
+	{
+		long total = 0;
+		for (BufferedImage img : lru.values()) total += rasterBytes(img);
+		return total;
+	}
+
+	public synchronized int size()
+	{
+		return lru.size();
+	}
+
+	static long rasterBytes(BufferedImage img)
+	{
+		if (img == null) return 0;
+		DataBuffer db = img.getRaster().getDataBuffer();
+		return (long) db.getSize() * db.getNumBanks() * DataBuffer.getDataTypeSize(db.getDataType()) / 8;
+	}
+
 	private synchronized void put(String key, BufferedImage img)
 	{
 		if (key == null || img == null) return;
 		lru.put(key, img);
 	}
 
+	/**
+	 * Room for every tile of a board plus its atlas; a smaller board gives the space back.
+	 */
+	private synchronized void fitBoard(int tiles)
+	{
+		capacity = Math.max(MIN_CAPACITY, Math.min(MAX_CAPACITY, tiles + 1));
+		Iterator<String> it = lru.keySet().iterator();
+		while (lru.size() > capacity && it.hasNext())
+		{
+			it.next();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Delivers every tile's image for a board. With a sprite atlas that's one request and one
+	 * decode for the whole board, and each tile is a {@link BufferedImage#getSubimage} view sharing
+	 * the sheet's pixels; tiles the atlas doesn't cover, or every tile if the atlas fails, fall
+	 * back to their own imageUrl.
+	 */
+	public void fetchTiles(BoardDto board, TileCallback cb)
+	{
+		if (board == null || board.tiles == null) return;
+		fitBoard(board.tiles.size());
+
+		BoardDto.Atlas atlas = board.atlas;
+		if (atlas == null || atlas.imageUrl == null || atlas.imageUrl.trim().isEmpty() || atlas.rects == null || atlas.rects.isEmpty())
+		{
+			fetchEach(board.tiles, null, null, cb);
+			return;
+		}
+
+		// the sheet is cached like any other image, so a board refresh doesn't download it again
+		fetchAsync(ATLAS_KEY + atlas.imageUrl.trim(), atlas.imageUrl,
+			sheet -> fetchEach(board.tiles, sheet, atlas.rects, cb),
+			() -> fetchEach(board.tiles, null, null, cb));
+	}
+
+	private void fetchEach(List<BoardDto.Tile> tiles, BufferedImage sheet, Map<Integer, BoardDto.Rect> rects, TileCallback cb)
+	{
+		List<Pending> misses = new ArrayList<>();
+		for (BoardDto.Tile t : tiles)
+		{
+			if (t == null) continue;
+			int tile = t.tileIndex;
+
+			BufferedImage slice = sheet == null ? null : slice(sheet, rects.get(tile));
+			if (slice != null)
+			{
+				cb.onImage(tile, slice);
+				continue;
+			}
+			if (t.imageUrl == null || t.imageUrl.trim().isEmpty()) continue;
+
+			String url = t.imageUrl.trim();
+			BufferedImage cached = getIfPresent(url);
+			if (cached != null) cb.onImage(tile, cached);
+			else misses.add(new Pending(tile, url));
+		}
+		if (!misses.isEmpty()) fetchWindows(misses, 0, cb);
+	}
+
+	/**
+	 * Queues one job for the next {@link #WINDOW} images; it queues the following window when
+	 * done. A 500-tile board so holds one queue slot rather than 500, and between windows the
+	 * worker is free for polls and proofs.
+	 */
+	private void fetchWindows(List<Pending> pending, int from, TileCallback cb)
+	{
+		try
+		{
+			scheduler.execute(SnakesScheduler.Priority.LOW, () -> fetchWindow(pending, from, cb));
+		}
+		catch (RejectedExecutionException ex)
+		{
+			if (scheduler.isShutdown()) return;
+			log.debug("Tile image queue full, retrying {} images", pending.size() - from);
+			try
+			{
+				scheduler.schedule(SnakesScheduler.Priority.LOW, () -> fetchWindow(pending, from, cb), RETRY_MS);
+			}
+			catch (RejectedExecutionException ignored)
+			{
+				// shut down meanwhile
+			}
+		}
+	}
+
+	private void fetchWindow(List<Pending> pending, int from, TileCallback cb)
+	{
+		int to = Math.min(pending.size(), from + WINDOW);
+		List<CompletableFuture<HttpResponse<byte[]>>> inFlight = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++)
+		{
+			CompletableFuture<HttpResponse<byte[]>> f;
+			try
+			{
+				f = scheduler.sendAsync(imageRequest(pending.get(i).url), HttpResponse.BodyHandlers.ofByteArray());
+			}
+			catch (RuntimeException ex)
+			{
+				// a malformed URL only loses its own tile
+				f = CompletableFuture.failedFuture(ex);
+			}
+			inFlight.add(f);
+		}
+
+		for (int i = from; i < to; i++)
+		{
+			Pending p = pending.get(i);
+			try
+			{
+				BufferedImage img = decode(inFlight.get(i - from).get());
+				if (img == null) continue;
+				put(p.url, img);
+				cb.onImage(p.tile, img);
+			}
+			catch (InterruptedException ex)
+			{
+				// shutting down
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (Exception ex)
+			{
+				log.debug("Tile image {} failed: {}", p.url, ex.getMessage());
+			}
+		}
+
+		if (to < pending.size()) fetchWindows(pending, to, cb);
+	}
+
+	private static BufferedImage slice(BufferedImage sheet, BoardDto.Rect r)
+	{
+		if (r == null || r.w <= 0 || r.h <= 0 || r.x < 0 || r.y < 0) return null;
+		if (r.x + r.w > sheet.getWidth() || r.y + r.h > sheet.getHeight()) return null;
+		return sheet.getSubimage(r.x, r.y, r.w, r.h);
+	}
+
 	public void fetchAsync(String cacheKey, String imageUrl, ImageCallback cb)
+	{
+		fetchAsync(cacheKey, imageUrl, cb, null);
+	}
+
+	private void fetchAsync(String cacheKey, String imageUrl, ImageCallback cb, Runnable onFailure)
 	{
 		if (cacheKey == null || cacheKey.trim().isEmpty()) return;
 		if (imageUrl == null || imageUrl.trim().isEmpty()) return;
@@ -50,39 +237,72 @@ public class TileImageCache
 			return;
 		}
 
-		pool.submit(() ->
+		try
 		{
-			try
-			{
-				HttpRequest req = HttpRequest.newBuilder()
-					.uri(URI.create(imageUrl.trim()))
-					.GET()
-					.header("accept", "image/*")
-					.build();
+			scheduler.execute(SnakesScheduler.Priority.LOW, () -> fetch(cacheKey, imageUrl, cb, onFailure));
+		}
+		catch (RejectedExecutionException ignored)
+		{
+			// plugin shutting down, or the queue is backed up; the next board refresh asks again
+		}
+	}
 
-				HttpResponse<byte[]> res = HTTP.send(req, HttpResponse.BodyHandlers.ofByteArray());
-				if (res.statusCode() >= 400) return;
+	private void fetch(String cacheKey, String imageUrl, ImageCallback cb, Runnable onFailure)
+	{
+		BufferedImage img = null;
+		try
+		{
+			img = decode(scheduler.send(imageRequest(imageUrl), HttpResponse.BodyHandlers.ofByteArray()));
+		}
+		catch (Exception ignored)
+		{
+			// ignore
+		}
 
-				BufferedImage img = ImageIO.read(new ByteArrayInputStream(res.body()));
-				if (img == null) return;
+		if (img == null)
+		{
+			if (onFailure != null) onFailure.run();
+			return;
+		}
+		put(cacheKey, img);
+		cb.onImage(img);
+	}
 
-				put(cacheKey, img);
-				cb.onImage(img);
-			}
-			catch (Exception ignored)
-			{
-				// ignore
-			}
-		});
+	private static HttpRequest imageRequest(String imageUrl)
+	{
+		return HttpRequest.newBuilder()
+			.uri(URI.create(imageUrl.trim()))
+			.GET()
+			.timeout(TIMEOUT)
+			.header("accept", "image/*")
+			.build();
+	}
+
+	private static BufferedImage decode(HttpResponse<byte[]> res) throws IOException
+	{
+		if (res.statusCode() >= 400) return null;
+		return ImageIO.read(new ByteArrayInputStream(res.body()));
 	}
 
-	public void shutdown()
+	private static final class Pending
 	{
-		pool.shutdownNow();
+		final int tile;
+		final String url;
+
+		Pending(int tile, String url)
+		{
+			this.tile = tile;
+			this.url = url;
+		}
 	}
 
 	public interface ImageCallback
 	{
 		void onImage(BufferedImage image);
 	}
+
+	public interface TileCallback
+	{
+		void onImage(int tileIndex, BufferedImage image);
+	}
 }
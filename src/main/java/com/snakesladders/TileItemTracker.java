@@ -0,0 +1,238 @@
+package com.snakesladders;
+
+import java.util.Arrays;
+
+/**
+ * Tracks "obtain item X" progress for the active tile.
+ *
+ * Requirements are compiled into an open-addressing int map (item id -> slot) with plain int
+ * counters per slot, so the event paths below do no boxing or allocation and cost one probe
+ * per item seen rather than one per requirement.
+ *
+ * Each source (loot, own ground drops, inventory gained since the tile started) is counted
+ * separately and progress is the max of them, so a drop that is both looted and picked up is
+ * only counted once. Items we drop from our own inventory are netted out of ground spawns.
+ */
+final class TileItemTracker
+{
+	private static final int EMPTY = -1;
+	// a spawn this many ticks after the same item left our inventory is us dropping it
+	private static final int DROP_WINDOW_TICKS = 2;
+
+	private int[] keys = new int[0];
+	private int[] slotOf = new int[0];
+	private int mask;
+
+	private int[] required = new int[0];
+	private String[] names = new String[0];
+	private int[] looted = new int[0];
+	private int[] spawned = new int[0];
+	private int[] heldBaseline = new int[0];
+	private int[] held = new int[0];
+	private int[] current = new int[0];
+	private int[] dropped = new int[0];
+	private int[] droppedTick = new int[0];
+	private int[] scratch = new int[0];
+
+	private int tileIndex = -1;
+
+	int getTileIndex()
+	{
+		return tileIndex;
+	}
+
+	boolean hasRequirements()
+	{
+		return required.length > 0;
+	}
+
+	/**
+	 * Compiles the tile's item requirements and snapshots the current inventory as the baseline.
+	 */
+	void reset(int tileIndex, BoardDto.Tile tile, int[] inventoryIds, int[] inventoryQty)
+	{
+		this.tileIndex = tileIndex;
+
+		int n = 0;
+		if (tile != null && tile.items != null)
+		{
+			for (BoardDto.Item it : tile.items)
+			{
+				if (it != null && it.itemId >= 0) n++;
+			}
+		}
+
+		int cap = Integer.highestOneBit(Math.max(1, n * 2 - 1)) << 1;
+		keys = new int[cap];
+		slotOf = new int[cap];
+		Arrays.fill(keys, EMPTY);
+		mask = cap - 1;
+
+		required = new int[n];
+		names = new String[n];
+		looted = new int[n];
+		spawned = new int[n];
+		heldBaseline = new int[n];
+		held = new int[n];
+		current = new int[n];
+		dropped = new int[n];
+		droppedTick = new int[n];
+		scratch = new int[n];
+
+		int slot = 0;
+		if (n > 0)
+		{
+			for (BoardDto.Item it : tile.items)
+			{
+				if (it == null || it.itemId < 0) continue;
+				if (find(it.itemId) >= 0) continue; // duplicate id, keep the first
+				insert(it.itemId, slot);
+				required[slot] = Math.max(1, it.quantity);
+				names[slot] = it.name == null || it.name.trim().isEmpty() ? "Item " + it.itemId : it.name.trim();
+				slot++;
+			}
+		}
+
+		if (slot < n)
+		{
+			required = Arrays.copyOf(required, slot);
+			names = Arrays.copyOf(names, slot);
+		}
+
+		if (inventoryIds != null) countInto(heldBaseline, inventoryIds, inventoryQty);
+		System.arraycopy(heldBaseline, 0, current, 0, current.length);
+	}
+
+	/**
+	 * @return true if progress changed
+	 */
+	boolean onLoot(int itemId, int quantity)
+	{
+		int slot = find(itemId);
+		if (slot < 0 || quantity <= 0) return false;
+		looted[slot] += quantity;
+		return true;
+	}
+
+	/**
+	 * Ground item owned by us (drops the loot tracker doesn't report, e.g. skilling).
+	 */
+	boolean onSpawned(int itemId, int quantity, int tick)
+	{
+		int slot = find(itemId);
+		if (slot < 0 || quantity <= 0) return false;
+
+		if (dropped[slot] > 0 && tick - droppedTick[slot] <= DROP_WINDOW_TICKS)
+		{
+			int own = Math.min(dropped[slot], quantity);
+			dropped[slot] -= own;
+			quantity -= own;
+			if (quantity == 0) return false;
+		}
+
+		spawned[slot] += quantity;
+		return true;
+	}
+
+	/**
+	 * Inventory changed. Parallel id/qty arrays keep this independent of the RuneLite Item type.
+	 *
+	 * @return true if progress changed
+	 */
+	boolean onInventory(int[] ids, int[] qty, int count, int tick)
+	{
+		if (required.length == 0) return false;
+
+		Arrays.fill(scratch, 0);
+		for (int i = 0; i < count; i++)
+		{
+			int slot = find(ids[i]);
+			if (slot >= 0) scratch[slot] += qty[i];
+		}
+
+		boolean changed = false;
+		for (int s = 0; s < required.length; s++)
+		{
+			if (scratch[s] < current[s])
+			{
+				dropped[s] = (tick - droppedTick[s] <= DROP_WINDOW_TICKS ? dropped[s] : 0) + current[s] - scratch[s];
+				droppedTick[s] = tick;
+			}
+			current[s] = scratch[s];
+
+			int gained = Math.max(0, scratch[s] - heldBaseline[s]);
+			if (gained > held[s])
+			{
+				held[s] = gained;
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	boolean isComplete()
+	{
+		if (required.length == 0) return false;
+		for (int s = 0; s < required.length; s++)
+		{
+			if (progress(s) < required[s]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Tooltip line, e.g. "Dragon bones 3/5, Abyssal whip 0/1". Only built when progress changes.
+	 */
+	String describe()
+	{
+		if (required.length == 0) return "";
+
+		StringBuilder sb = new StringBuilder("Items: ");
+		for (int s = 0; s < required.length; s++)
+		{
+			if (s > 0) sb.append(", ");
+			sb.append(names[s]).append(' ').append(Math.min(progress(s), required[s])).append('/').append(required[s]);
+		}
+		return sb.toString();
+	}
+
+	private int progress(int slot)
+	{
+		return Math.max(looted[slot], Math.max(spawned[slot], held[slot]));
+	}
+
+	private void countInto(int[] counts, int[] ids, int[] qty)
+	{
+		for (int i = 0; i < ids.length; i++)
+		{
+			int slot = find(ids[i]);
+			if (slot >= 0) counts[slot] += qty[i];
+		}
+	}
+
+	private int find(int itemId)
+	{
+		// empty inventory slots report id -1, which is also our empty-key marker
+		if (itemId < 0 || keys.length == 0) return -1;
+		for (int i = mix(itemId) & mask; ; i = (i + 1) & mask)
+		{
+			int k = keys[i];
+			if (k == itemId) return slotOf[i];
+			if (k == EMPTY) return -1;
+		}
+	}
+
+	private void insert(int itemId, int slot)
+	{
+		int i = mix(itemId) & mask;
+		while (keys[i] != EMPTY) i = (i + 1) & mask;
+		keys[i] = itemId;
+		slotOf[i] = slot;
+	}
+
+	private static int mix(int x)
+	{
+		x *= 0x9E3779B9;
+		return x ^ (x >>> 16);
+	}
+}
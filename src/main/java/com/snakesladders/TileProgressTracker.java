@@ -0,0 +1,194 @@
+package com.snakesladders;
+
+import net.runelite.api.Skill;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * XP / kill count progress for the active tile.
+ *
+ * Baselines are taken when the tile becomes active and can be saved/restored as a short
+ * string, so a client restart resumes from the same starting point. Every update is O(1):
+ * XP lives in a flat per-skill array indexed by {@link Skill#ordinal()}.
+ */
+final class TileProgressTracker
+{
+	private static final Skill[] SKILLS = Skill.values();
+
+	// "Your Vorkath kill count is: 25." / "Your completed Chambers of Xeric count is: 3."
+	private static final Pattern KC_PATTERN = Pattern.compile("^Your (?:completed )?(.+?) (?:kill )?count is: ([0-9,]+)");
+
+	private final long[] xp = new long[SKILLS.length];
+
+	private int tileIndex = -1;
+
+	private int skill = -1;
+	private long xpTarget;
+	private long xpBaseline = -1;
+
+	private String boss = "";
+	private int killTarget;
+	private int kcBaseline = -1;
+	private int kcCurrent = -1;
+
+	int getTileIndex()
+	{
+		return tileIndex;
+	}
+
+	boolean hasRequirement()
+	{
+		return skill >= 0 || killTarget > 0;
+	}
+
+	/**
+	 * Switches to a new tile. {@code saved} is the string from {@link #save()} for this tile, if any.
+	 */
+	void reset(int tileIndex, BoardDto.Tile tile, String saved)
+	{
+		this.tileIndex = tileIndex;
+		skill = -1;
+		xpTarget = 0;
+		xpBaseline = -1;
+		boss = "";
+		killTarget = 0;
+		kcBaseline = -1;
+		kcCurrent = -1;
+
+		if (tile == null) return;
+
+		if (tile.skill != null && tile.xp > 0)
+		{
+			try
+			{
+				skill = Skill.valueOf(tile.skill.trim().toUpperCase(Locale.ROOT)).ordinal();
+				xpTarget = tile.xp;
+			}
+			catch (IllegalArgumentException ex)
+			{
+				skill = -1;
+			}
+		}
+
+		if (tile.boss != null && !tile.boss.trim().isEmpty() && tile.kills > 0)
+		{
+			boss = tile.boss.trim();
+			killTarget = tile.kills;
+		}
+
+		restore(saved);
+
+		// we may already know the current xp from earlier StatChanged events
+		if (skill >= 0 && xpBaseline < 0 && xp[skill] > 0) xpBaseline = xp[skill];
+	}
+
+	/**
+	 * @return true if a baseline was taken (caller should persist)
+	 */
+	boolean onXp(Skill s, long value)
+	{
+		int i = s.ordinal();
+		xp[i] = value;
+		if (i != skill || xpBaseline >= 0 || value <= 0) return false;
+		xpBaseline = value;
+		return true;
+	}
+
+	/**
+	 * Chat hook (tags already stripped); cheap reject for anything that isn't a count message.
+	 *
+	 * @return true if the kill count changed (caller should persist)
+	 */
+	boolean onChat(String message)
+	{
+		if (killTarget <= 0 || !message.startsWith("Your ")) return false;
+
+		Matcher m = KC_PATTERN.matcher(message);
+		if (!m.find() || !m.group(1).equalsIgnoreCase(boss)) return false;
+
+		int kc;
+		try
+		{
+			kc = Integer.parseInt(m.group(2).replace(",", ""));
+		}
+		catch (NumberFormatException ex)
+		{
+			return false;
+		}
+
+		kcCurrent = kc;
+
+		// first count we've seen since the tile started: that kill already counts
+		if (kcBaseline < 0) kcBaseline = kc - 1;
+		return true;
+	}
+
+	/**
+	 * 0-100, or -1 when this tile has nothing to track. With both xp and kills the lower wins.
+	 */
+	int percent()
+	{
+		int pct = -1;
+		if (skill >= 0)
+		{
+			long gained = xpBaseline < 0 ? 0 : Math.max(0, xp[skill] - xpBaseline);
+			pct = (int) Math.min(100, gained * 100 / xpTarget);
+		}
+		if (killTarget > 0)
+		{
+			int kills = kcBaseline < 0 || kcCurrent < 0 ? 0 : Math.max(0, kcCurrent - kcBaseline);
+			int kcPct = Math.min(100, kills * 100 / killTarget);
+			pct = pct < 0 ? kcPct : Math.min(pct, kcPct);
+		}
+		return pct;
+	}
+
+	String describe()
+	{
+		StringBuilder sb = new StringBuilder();
+		if (skill >= 0)
+		{
+			long gained = xpBaseline < 0 ? 0 : Math.max(0, xp[skill] - xpBaseline);
+			sb.append(SKILLS[skill].getName()).append(" XP: ")
+				.append(String.format("%,d", Math.min(gained, xpTarget))).append('/')
+				.append(String.format("%,d", xpTarget));
+		}
+		if (killTarget > 0)
+		{
+			int kills = kcBaseline < 0 || kcCurrent < 0 ? 0 : Math.max(0, kcCurrent - kcBaseline);
+			if (sb.length() > 0) sb.append('\n');
+			sb.append(boss).append(" kills: ").append(Math.min(kills, killTarget)).append('/').append(killTarget);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * "xpBaseline,kcBaseline,kcCurrent"
+	 */
+	String save()
+	{
+		return xpBaseline + "," + kcBaseline + "," + kcCurrent;
+	}
+
+	private void restore(String saved)
+	{
+		if (saved == null || saved.isEmpty()) return;
+
+		String[] parts = saved.split(",");
+		if (parts.length != 3) return;
+		try
+		{
+			xpBaseline = Long.parseLong(parts[0]);
+			kcBaseline = Integer.parseInt(parts[1]);
+			kcCurrent = Integer.parseInt(parts[2]);
+		}
+		catch (NumberFormatException ex)
+		{
+			xpBaseline = -1;
+			kcBaseline = -1;
+			kcCurrent = -1;
+		}
+	}
+}
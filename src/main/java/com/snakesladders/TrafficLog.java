@@ -0,0 +1,311 @@
+package com.snakesladders;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opt-in recording of every overlay / state / board response, for replaying a member's exact
+ * sequence offline.
+ *
+ * The file is a gzip stream: a header (magic, version, game id), then one length-prefixed
+ * record per response (endpoint, time, status, server delay hint, ETag, body). A record cut
+ * short by a crash ends the replay there. Recording works like {@link HttpTrace}: callers
+ * offer to a bounded queue and the scheduler's writer thread does the IO, dropping records
+ * rather than blocking a poll.
+ */
+@Slf4j
+final class TrafficLog
+{
+	static final String EXTENSION = ".snkr";
+
+	private static final int MAGIC = 0x534E4B52; // "SNKR"
+	private static final int VERSION = 1;
+	private static final int QUEUE_CAPACITY = 1024;
+	// only what the poll path reads; posts (roll, proof) aren't replayed
+	private static final String[] ENDPOINTS = {"overlay", "state", "board"};
+
+	private static final class Record
+	{
+		final long timeMs;
+		final int endpoint;
+		final SnakesApi.ApiResult result;
+
+		Record(long timeMs, int endpoint, SnakesApi.ApiResult result)
+		{
+			this.timeMs = timeMs;
+			this.endpoint = endpoint;
+			this.result = result;
+		}
+	}
+
+	private final File file;
+	private final String gameId;
+	private final QueuedWriter<Record> writer;
+
+	private DataOutputStream out;
+
+	/**
+	 * Starts a new log file in {@code dir}, named after the current time.
+	 */
+	TrafficLog(File dir, String gameId, SnakesScheduler scheduler)
+	{
+		String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+		this.file = new File(dir, "traffic-" + stamp + EXTENSION);
+		this.gameId = gameId == null ? "" : gameId;
+		writer = new QueuedWriter<>(scheduler, "Traffic recording", QUEUE_CAPACITY, new QueuedWriter.Sink<>()
+		{
+			@Override
+			public void write(Record r) throws IOException
+			{
+				TrafficLog.this.write(r);
+			}
+
+			@Override
+			public void flush() throws IOException
+			{
+				if (out != null) out.flush();
+			}
+
+			@Override
+			public void close()
+			{
+				closeFile();
+			}
+		});
+	}
+
+	/**
+	 * Never blocks; unknown endpoints are ignored.
+	 */
+	void record(String endpoint, SnakesApi.ApiResult res)
+	{
+		int id = endpointId(endpoint);
+		if (id < 0 || res == null) return;
+		writer.offer(new Record(System.currentTimeMillis(), id, res));
+	}
+
+	long getDropped()
+	{
+		return writer.getDropped();
+	}
+
+	File getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * Stops the writer after it drains what's already queued.
+	 */
+	void close()
+	{
+		writer.close();
+	}
+
+	private void closeFile()
+	{
+		if (out == null) return;
+		try
+		{
+			out.close();
+		}
+		catch (IOException e)
+		{
+			log.debug("Traffic log close failed", e);
+		}
+		out = null;
+	}
+
+	private void write(Record r) throws IOException
+	{
+		if (out == null)
+		{
+			File dir = file.getParentFile();
+			if (dir != null && !dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+			out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file)), 8192, true));
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeUTF(gameId);
+			log.debug("Recording overlay traffic to {}", file);
+		}
+
+		ByteArrayOutputStream buf = new ByteArrayOutputStream(256 + (r.result.body == null ? 0 : r.result.body.length() * 2));
+		DataOutputStream rec = new DataOutputStream(buf);
+		rec.writeByte(r.endpoint);
+		rec.writeLong(r.timeMs);
+		rec.writeShort(r.result.statusCode);
+		rec.writeLong(r.result.serverDelaySeconds);
+		writeString(rec, r.result.etag);
+		writeString(rec, r.result.body);
+
+		out.writeInt(buf.size());
+		buf.writeTo(out);
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException
+	{
+		if (s == null)
+		{
+			out.writeInt(-1);
+			return;
+		}
+		byte[] b = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(b.length);
+		out.write(b);
+	}
+
+	private static String readString(DataInputStream in) throws IOException
+	{
+		int len = in.readInt();
+		if (len < 0) return null;
+		byte[] b = new byte[len];
+		in.readFully(b);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	private static int endpointId(String endpoint)
+	{
+		for (int i = 0; i < ENDPOINTS.length; i++)
+		{
+			if (ENDPOINTS[i].equals(endpoint)) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Reads a whole log for replay.
+	 */
+	static Replay load(File file) throws IOException
+	{
+		try (InputStream raw = new FileInputStream(file);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(raw))))
+		{
+			if (in.readInt() != MAGIC) throw new IOException("Not a traffic log: " + file);
+			int version = in.readUnsignedByte();
+			if (version != VERSION) throw new IOException("Unsupported traffic log version " + version);
+			String gameId = in.readUTF();
+
+			List<Record> records = new ArrayList<>();
+			while (true)
+			{
+				byte[] rec;
+				try
+				{
+					int len = in.readInt();
+					if (len < 0) break;
+					rec = new byte[len];
+					in.readFully(rec);
+				}
+				catch (EOFException e)
+				{
+					// end of file, or a record the recorder didn't get to finish
+					break;
+				}
+
+				DataInputStream r = new DataInputStream(new ByteArrayInputStream(rec));
+				int endpoint = r.readUnsignedByte();
+				long time = r.readLong();
+				int status = r.readShort();
+				long delay = r.readLong();
+				String etag = readString(r);
+				String body = readString(r);
+				if (endpoint < ENDPOINTS.length) records.add(new Record(time, endpoint, new SnakesApi.ApiResult(status, body, etag, delay)));
+			}
+			return new Replay(gameId, records);
+		}
+	}
+
+	/**
+	 * Serves a recorded session back in order. Each overlay request returns the next recorded
+	 * overlay response; state and board return the latest response recorded up to that point,
+	 * so what the plugin sees matches what it saw live. Used from the poll path only.
+	 */
+	static final class Replay
+	{
+		final String gameId;
+		private final Record[] records;
+		// index of the overlay record last served; -1 before the first
+		private int cursor = -1;
+
+		private Replay(String gameId, List<Record> records)
+		{
+			this.gameId = gameId;
+			this.records = records.toArray(new Record[0]);
+		}
+
+		int size()
+		{
+			return records.length;
+		}
+
+		synchronized boolean isFinished()
+		{
+			return nextOverlay(cursor) < 0;
+		}
+
+		synchronized SnakesApi.ApiResult respond(String endpoint, String ifNoneMatch) throws IOException
+		{
+			int id = endpointId(endpoint);
+			if (id < 0) throw new IOException("Not recorded: " + endpoint);
+
+			if (id == 0)
+			{
+				int next = nextOverlay(cursor);
+				if (next < 0) return new SnakesApi.ApiResult(304, null, ifNoneMatch, -1);
+				cursor = next;
+				return records[next].result;
+			}
+
+			// latest full response for this endpoint recorded before the next overlay, since the
+			// live plugin fetched board and state right after the overlay that's current now
+			int next = nextOverlay(cursor);
+			for (int i = next < 0 ? records.length - 1 : next - 1; i >= 0; i--)
+			{
+				Record r = records[i];
+				if (r.endpoint != id || r.result.body == null) continue;
+				if (r.result.etag != null && r.result.etag.equals(ifNoneMatch)) return new SnakesApi.ApiResult(304, null, r.result.etag, -1);
+				return r.result;
+			}
+			throw new IOException("No " + endpoint + " response recorded before this point");
+		}
+
+		/**
+		 * Time until the next recorded overlay response, divided by {@code speed}.
+		 */
+		synchronized long delayToNextMs(int speed)
+		{
+			int next = nextOverlay(cursor);
+			if (next < 0) return -1;
+			if (cursor < 0) return 0;
+			return Math.max(0, (records[next].timeMs - records[cursor].timeMs) / Math.max(1, speed));
+		}
+
+		private int nextOverlay(int from)
+		{
+			for (int i = from + 1; i < records.length; i++)
+			{
+				if (records[i].endpoint == 0) return i;
+			}
+			return -1;
+		}
+	}
+}
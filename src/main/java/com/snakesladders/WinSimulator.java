@@ -0,0 +1,196 @@
+package com.snakesladders;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Monte Carlo estimate of each team's chance to win and expected finish time.
+ *
+ * Every trial plays the rest of the game for all teams: complete the current tile's task
+ * (exponentially distributed around its estimate, so time already spent on it doesn't matter),
+ * roll, move, repeat. The first team to reach the last tile wins; if the event ends first, the
+ * furthest team wins, ties shared. Trials are split across a fork-join pool, each leaf with its
+ * own {@link SplittableRandom} and preallocated arrays, so the inner loop doesn't allocate.
+ */
+final class WinSimulator
+{
+	static final int MIN_TRIALS = 10_000;
+	static final int MAX_TRIALS = 1_000_000;
+	// roughly how many team-turns one run may simulate
+	private static final long TURN_BUDGET = 50_000_000L;
+	private static final int LEAF_TRIALS = 16_384;
+	private static final int MAX_TURNS = 2_000;
+
+	static final class Result
+	{
+		final String[] teams;
+		final double[] winProbability;
+		// mean minutes from now to finish, over the trials where the team finished; NaN if it never did
+		final double[] etaMinutes;
+		final int trials;
+
+		Result(String[] teams, double[] winProbability, double[] etaMinutes, int trials)
+		{
+			this.teams = teams;
+			this.winProbability = winProbability;
+			this.etaMinutes = etaMinutes;
+			this.trials = trials;
+		}
+	}
+
+	private WinSimulator()
+	{
+	}
+
+	/**
+	 * Trial count that keeps one run within the turn budget for this many teams.
+	 */
+	static int trialsFor(BoardMoves board, int teams)
+	{
+		double turnsPerGame = Math.max(1, teams) * Math.max(1.0, board.size / 3.5);
+		return (int) Math.max(MIN_TRIALS, Math.min(MAX_TRIALS, TURN_BUDGET / turnsPerGame));
+	}
+
+	/**
+	 * @param positions      current tile per team, same order as {@code teams}
+	 * @param horizonMinutes time left in the event, or {@link Double#POSITIVE_INFINITY}
+	 */
+	static Result run(BoardMoves board, String[] teams, int[] positions, double horizonMinutes, int trials, ForkJoinPool pool, long seed)
+	{
+		Trials task = new Trials(board, positions, horizonMinutes, 0, trials, new SplittableRandom(seed));
+		Tally t = pool.invoke(task);
+
+		int n = teams.length;
+		double[] win = new double[n];
+		double[] eta = new double[n];
+		for (int i = 0; i < n; i++)
+		{
+			win[i] = t.wins[i] / trials;
+			eta[i] = t.finished[i] == 0 ? Double.NaN : t.finishMinutes[i] / t.finished[i];
+		}
+		return new Result(teams, win, eta, trials);
+	}
+
+	private static final class Tally
+	{
+		final double[] wins;
+		final double[] finishMinutes;
+		final long[] finished;
+
+		Tally(int teams)
+		{
+			wins = new double[teams];
+			finishMinutes = new double[teams];
+			finished = new long[teams];
+		}
+
+		Tally add(Tally o)
+		{
+			for (int i = 0; i < wins.length; i++)
+			{
+				wins[i] += o.wins[i];
+				finishMinutes[i] += o.finishMinutes[i];
+				finished[i] += o.finished[i];
+			}
+			return this;
+		}
+	}
+
+	private static final class Trials extends RecursiveTask<Tally>
+	{
+		private final BoardMoves board;
+		private final int[] start;
+		private final double horizon;
+		private final int from;
+		private final int to;
+		private final SplittableRandom rng;
+
+		Trials(BoardMoves board, int[] start, double horizon, int from, int to, SplittableRandom rng)
+		{
+			this.board = board;
+			this.start = start;
+			this.horizon = horizon;
+			this.from = from;
+			this.to = to;
+			this.rng = rng;
+		}
+
+		@Override
+		protected Tally compute()
+		{
+			if (to - from > LEAF_TRIALS)
+			{
+				int mid = (from + to) >>> 1;
+				Trials left = new Trials(board, start, horizon, from, mid, rng.split());
+				left.fork();
+				Tally right = new Trials(board, start, horizon, mid, to, rng).compute();
+				return right.add(left.join());
+			}
+			return simulate();
+		}
+
+		private Tally simulate()
+		{
+			int teams = start.length;
+			int size = board.size;
+			Tally tally = new Tally(teams);
+			double[] finish = new double[teams];
+			int[] reached = new int[teams];
+
+			for (int trial = from; trial < to; trial++)
+			{
+				double best = Double.POSITIVE_INFINITY;
+				int furthest = -1;
+
+				for (int t = 0; t < teams; t++)
+				{
+					int pos = start[t];
+					double time = 0;
+					for (int turn = 0; pos < size && turn < MAX_TURNS; turn++)
+					{
+						double mean = board.minutes(pos);
+						if (mean > 0) time -= mean * Math.log(1.0 - rng.nextDouble());
+						if (time > horizon) break;
+						pos = board.move(pos, 1 + rng.nextInt(BoardMoves.DIE));
+					}
+
+					finish[t] = pos >= size ? time : Double.POSITIVE_INFINITY;
+					reached[t] = pos;
+					if (finish[t] < best) best = finish[t];
+					if (pos > furthest) furthest = pos;
+					if (pos >= size)
+					{
+						tally.finishMinutes[t] += time;
+						tally.finished[t]++;
+					}
+				}
+
+				// winner(s): earliest finisher, else furthest along when time ran out
+				int winners = 0;
+				for (int t = 0; t < teams; t++)
+				{
+					if (best < Double.POSITIVE_INFINITY ? finish[t] == best : reached[t] == furthest) winners++;
+				}
+				double share = 1.0 / winners;
+				for (int t = 0; t < teams; t++)
+				{
+					if (best < Double.POSITIVE_INFINITY ? finish[t] == best : reached[t] == furthest) tally.wins[t] += share;
+				}
+			}
+			return tally;
+		}
+	}
+
+	/**
+	 * Team order by win probability, best first.
+	 */
+	static Integer[] ranking(Result r)
+	{
+		Integer[] order = new Integer[r.teams.length];
+		for (int i = 0; i < order.length; i++) order[i] = i;
+		Arrays.sort(order, (a, b) -> Double.compare(r.winProbability[b], r.winProbability[a]));
+		return order;
+	}
+}
@@ -0,0 +1,62 @@
+package com.snakesladders;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * In-memory {@link PartySync.Transport} for tests and the benchmark: every transport joined to the
+ * same {@link Hub} receives every other one's messages synchronously, no websocket involved.
+ */
+final class LocalPartyTransport implements PartySync.Transport
+{
+	static final class Hub
+	{
+		private final List<LocalPartyTransport> members = new CopyOnWriteArrayList<>();
+		private final AtomicLong ids = new AtomicLong(1);
+	}
+
+	private final Hub hub;
+	private final long memberId;
+	private volatile Consumer<SnakesPartyMessage> receiver = m -> { };
+
+	LocalPartyTransport(Hub hub)
+	{
+		this.hub = hub;
+		this.memberId = hub.ids.getAndIncrement();
+		hub.members.add(this);
+	}
+
+	void onReceive(Consumer<SnakesPartyMessage> receiver)
+	{
+		this.receiver = receiver;
+	}
+
+	void leave()
+	{
+		hub.members.remove(this);
+	}
+
+	@Override
+	public boolean isInParty()
+	{
+		return hub.members.contains(this);
+	}
+
+	@Override
+	public long localMemberId()
+	{
+		return isInParty() ? memberId : -1;
+	}
+
+	@Override
+	public void send(SnakesPartyMessage message)
+	{
+		message.setMemberId(memberId);
+		for (LocalPartyTransport m : hub.members)
+		{
+			if (m != this) m.receiver.accept(message);
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package com.snakesladders;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PartySyncTest
+{
+	private static final Map<String, Integer> STANDINGS = Collections.singletonMap("Sixth Degree", 12);
+	private static final long START = 1_000_000;
+
+	private final LocalPartyTransport.Hub hub = new LocalPartyTransport.Hub();
+
+	// every member reads the same clock, set by the test
+	private long now = START;
+
+	private final class Member
+	{
+		final LocalPartyTransport transport = new LocalPartyTransport(hub);
+		final PartySync sync = new PartySync(transport);
+		// etags of the snapshots accept() told us to apply
+		final List<String> applied = new ArrayList<>();
+		// messages carrying a snapshot
+		int received;
+
+		Member()
+		{
+			sync.setIdentity("game_1", "team-token");
+			transport.onReceive(m ->
+			{
+				if (m.body != null) received++;
+				if (sync.accept(m, now)) applied.add(m.etag);
+			});
+		}
+	}
+
+	private List<Member> party(int size)
+	{
+		List<Member> members = new ArrayList<>();
+		for (int i = 0; i < size; i++) members.add(new Member());
+		for (Member m : members) m.sync.heartbeat(now);
+		return members;
+	}
+
+	@Test
+	public void lowestMemberLeads()
+	{
+		List<Member> party = party(3);
+		Member leader = party.get(0);
+
+		// nobody follows until the leader's first snapshot arrives
+		for (Member m : party) assertFalse(m.sync.isFollower(now));
+
+		leader.sync.publish("\"r1\"", "{}", STANDINGS, now);
+		assertFalse(leader.sync.isFollower(now));
+		for (Member m : party.subList(1, 3))
+		{
+			assertTrue(m.sync.isFollower(now));
+			assertEquals(Collections.singletonList("\"r1\""), m.applied);
+		}
+
+		// a follower's publish goes nowhere
+		party.get(1).sync.publish("\"r2\"", "{}", STANDINGS, now);
+		assertEquals(0, leader.received);
+		assertEquals(1, party.get(2).received);
+	}
+
+	@Test
+	public void followerPollsAgainWhenLeaderGoesQuiet()
+	{
+		List<Member> party = party(3);
+		Member leader = party.get(0);
+		Member next = party.get(1);
+		Member last = party.get(2);
+
+		leader.sync.publish("\"r1\"", "{}", STANDINGS, now);
+		leader.transport.leave();
+
+		// the rest of the party keeps announcing itself
+		now = START + PartySync.HEARTBEAT_MS * 2;
+		next.sync.heartbeat(now);
+		last.sync.heartbeat(now);
+
+		now = START + PartySync.LEADER_TIMEOUT_MS - 1;
+		assertTrue(next.sync.isFollower(now));
+		assertTrue(last.sync.isFollower(now));
+
+		now = START + PartySync.LEADER_TIMEOUT_MS;
+		assertFalse(next.sync.isFollower(now));
+		assertFalse(last.sync.isFollower(now));
+
+		// the next lowest id takes over
+		next.sync.publish("\"r2\"", "{}", STANDINGS, now);
+		assertFalse(next.sync.isFollower(now));
+		assertTrue(last.sync.isFollower(now));
+		assertEquals("\"r2\"", last.applied.get(last.applied.size() - 1));
+	}
+
+	@Test
+	public void sameEtagIsAppliedOnce()
+	{
+		List<Member> party = party(2);
+		Member leader = party.get(0);
+		Member follower = party.get(1);
+
+		leader.sync.publish("\"r1\"", "{}", STANDINGS, now);
+		leader.sync.publish("\"r1\"", "{}", STANDINGS, now);
+		// the heartbeat repeats the last snapshot for members that just joined
+		now = START + PartySync.HEARTBEAT_MS;
+		leader.sync.heartbeat(now);
+		assertEquals(3, follower.received);
+		assertEquals(Collections.singletonList("\"r1\""), follower.applied);
+
+		leader.sync.publish("\"r2\"", "{}", STANDINGS, now);
+		assertEquals(List.of("\"r1\"", "\"r2\""), follower.applied);
+
+		// a repeat isn't applied again but still counts as a sign of life from the leader
+		now += PartySync.HEARTBEAT_MS;
+		leader.sync.heartbeat(now);
+		assertEquals(2, follower.applied.size());
+		assertTrue(follower.sync.isFollower(now + PartySync.LEADER_TIMEOUT_MS - 1));
+	}
+}
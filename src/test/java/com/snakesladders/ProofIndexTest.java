@@ -0,0 +1,216 @@
+package com.snakesladders;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Duplicate detection on generated fixed-mode frames: the same interface around a game scene
+ * and a chatbox of pixel "text", so the interface is most of every frame like it is in game.
+ */
+public class ProofIndexTest
+{
+	private static final Rectangle VIEWPORT = new Rectangle(4, 4, 512, 334);
+	private static final Rectangle CHAT = new Rectangle(7, 345, 506, 130);
+	private static final String[] MESSAGES = {
+		"Welcome to Old School RuneScape.",
+		"Your Vorkath kill count is: 41.",
+		"You have a funny feeling like you're being followed.",
+		"Your Vorkath kill count is: 42.",
+		"Valuable drop: Dragonbone necklace (1,203,114 coins)",
+		"Your Vorkath kill count is: 43.",
+		"You drink some of your antifire potion.",
+		"Your Vorkath kill count is: 44.",
+		"Valuable drop: Vorkath's head (75,000 coins)",
+	};
+
+	private File dir;
+	private ProofIndex index;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		dir = Files.createTempDirectory("proofs").toFile();
+		index = new ProofIndex(dir, "game_1");
+	}
+
+	@After
+	public void tearDown()
+	{
+		for (File f : dir.listFiles()) f.delete();
+		dir.delete();
+	}
+
+	@Test
+	public void retakenScreenshotIsDuplicate() throws Exception
+	{
+		index.add(hash(frame(1, 0, 8, false, false)), 12);
+
+		// an XP drop and the player shifted a few pixels, same messages
+		ProofIndex.Match match = index.findNear(hash(frame(1, 0, 8, true, false)));
+		assertNotNull(match);
+		assertEquals(12, match.tile);
+	}
+
+	@Test
+	public void nextKillAtSameSpotIsNotDuplicate() throws Exception
+	{
+		BufferedImage first = frame(1, 0, 8, false, false);
+		// one kill later: loot on the floor, and the new messages have scrolled the chat by one line
+		BufferedImage next = frame(1, 1, 9, true, true);
+
+		// the whole frame is mostly interface, so a hash of all of it can't tell these apart
+		long whole = ProofImages.dHash(first, null, 9, 8) ^ ProofImages.dHash(next, null, 9, 8);
+		assertTrue(Long.bitCount(whole) <= ProofIndex.MAX_SCENE_DISTANCE);
+
+		index.add(hash(first), 12);
+		assertNull(index.findNear(hash(next)));
+	}
+
+	@Test
+	public void differentSceneIsNotDuplicate() throws Exception
+	{
+		index.add(hash(frame(1, 0, 8, false, false)), 12);
+		assertNull(index.findNear(hash(frame(2, 0, 8, false, false))));
+	}
+
+	@Test
+	public void closedChatComparesTheScene() throws Exception
+	{
+		index.add(ProofImages.hash(frame(1, 0, 8, false, false), VIEWPORT, null), 12);
+		assertNotNull(index.findNear(ProofImages.hash(frame(1, 0, 8, true, false), VIEWPORT, null)));
+		assertNull(index.findNear(ProofImages.hash(frame(3, 0, 8, false, false), VIEWPORT, null)));
+	}
+
+	@Test
+	public void closingTheChatDoesNotHideARetake() throws Exception
+	{
+		index.add(hash(frame(1, 0, 8, false, false)), 12);
+		ProofImages.Hash closed = ProofImages.hash(frame(1, 0, 8, true, false), VIEWPORT, null);
+		assertNotNull(index.findNear(closed));
+		assertNull(index.findNear(ProofImages.hash(frame(3, 0, 8, false, false), VIEWPORT, null)));
+
+		// and the other way round, after a restart
+		ProofIndex reloaded = new ProofIndex(dir, "game_2");
+		reloaded.add(closed, 13);
+		reloaded = new ProofIndex(dir, "game_2");
+		ProofIndex.Match match = reloaded.findNear(hash(frame(1, 0, 8, false, false)));
+		assertNotNull(match);
+		assertEquals(13, match.tile);
+	}
+
+	@Test
+	public void survivesRestart() throws Exception
+	{
+		index.add(hash(frame(1, 0, 8, false, false)), 12);
+		index.add(hash(frame(2, 0, 8, false, false)), 13);
+
+		ProofIndex reloaded = new ProofIndex(dir, "game_1");
+		ProofIndex.Match match = reloaded.findNear(hash(frame(2, 0, 8, false, false)));
+		assertNotNull(match);
+		assertEquals(13, match.tile);
+		assertNull(new ProofIndex(dir, "game_2").findNear(hash(frame(2, 0, 8, false, false))));
+	}
+
+	private static ProofImages.Hash hash(BufferedImage frame)
+	{
+		return ProofImages.hash(frame, VIEWPORT, CHAT);
+	}
+
+	/**
+	 * A 765x503 fixed-mode frame: interface, a scene drawn from {@code sceneSeed}, and chat
+	 * messages {@code from} (inclusive) to {@code to} (exclusive).
+	 */
+	private static BufferedImage frame(int sceneSeed, int from, int to, boolean moved, boolean loot)
+	{
+		BufferedImage img = new BufferedImage(765, 503, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = img.createGraphics();
+
+		// interface: stone frame, minimap, tabs and a full inventory
+		g.setColor(new Color(62, 53, 41));
+		g.fillRect(0, 0, 765, 503);
+		g.setColor(new Color(20, 60, 25));
+		g.fillOval(570, 9, 150, 150);
+		for (int i = 0; i < 14; i++)
+		{
+			g.setColor(i % 2 == 0 ? new Color(90, 30, 20) : new Color(110, 95, 60));
+			g.fillRect(522 + (i % 7) * 33, i < 7 ? 168 : 466, 30, 34);
+		}
+		for (int i = 0; i < 28; i++)
+		{
+			g.setColor(new Color(140 + i * 3, 120, 40 + i * 5));
+			g.fillRect(563 + (i % 4) * 42, 212 + (i / 4) * 36, 30, 28);
+		}
+
+		// scene: ground, then objects placed from the seed
+		Random r = new Random(sceneSeed);
+		g.setColor(new Color(60 + r.nextInt(80), 60 + r.nextInt(80), 40 + r.nextInt(60)));
+		g.fillRect(VIEWPORT.x, VIEWPORT.y, VIEWPORT.width, VIEWPORT.height);
+		for (int i = 0; i < 12; i++)
+		{
+			g.setColor(new Color(r.nextInt(256), r.nextInt(256), r.nextInt(256)));
+			g.fillRect(VIEWPORT.x + r.nextInt(440), VIEWPORT.y + r.nextInt(270), 20 + r.nextInt(70), 20 + r.nextInt(60));
+		}
+		// the player
+		g.setColor(new Color(200, 180, 150));
+		g.fillRect(250 + (moved ? 3 : 0), 150, 14, 40);
+		if (moved)
+		{
+			// an XP drop by the minimap corner of the viewport
+			g.setColor(Color.WHITE);
+			g.fillRect(440, 40, 60, 10);
+		}
+		if (loot)
+		{
+			g.setColor(new Color(230, 200, 40));
+			g.fillRect(280, 185, 12, 8);
+		}
+
+		// chatbox: parchment with one message per 14px line, newest at the bottom
+		g.setColor(new Color(200, 185, 140));
+		g.fillRect(CHAT.x, CHAT.y, CHAT.width, CHAT.height);
+		String[] lines = Arrays.copyOfRange(MESSAGES, from, to);
+		for (int i = 0; i < lines.length; i++)
+		{
+			text(img, lines[i], CHAT.x + 4, CHAT.y + CHAT.height - 14 * (lines.length - i));
+		}
+
+		g.dispose();
+		return img;
+	}
+
+	/**
+	 * Pixel "font": each character is a 5x7 pattern derived from its code, 7px apart.
+	 */
+	private static void text(BufferedImage img, String s, int x, int y)
+	{
+		for (int i = 0; i < s.length(); i++)
+		{
+			char c = s.charAt(i);
+			if (c == ' ') continue;
+
+			long bits = new Random(c).nextLong();
+			for (int gy = 0; gy < 7; gy++)
+			{
+				for (int gx = 0; gx < 5; gx++)
+				{
+					if ((bits >>> (gy * 5 + gx) & 1) != 0) img.setRGB(x + i * 7 + gx, y + 3 + gy, 0x000000);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.snakesladders;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RollSolverTest
+{
+	private static final double EPS = 1e-9;
+
+	@Test
+	public void straightBoard()
+	{
+		int size = 20;
+		RollSolver.Solution s = RollSolver.solve(moves(size, new HashMap<>()));
+
+		// from each of the last six tiles exactly one roll finishes, and every other roll (bounced
+		// or not) stays among them, so each is a 1-in-6 wait
+		for (int t = size - 6; t < size; t++) assertEquals(6, s.expectedRolls(t), EPS);
+		assertEquals(0, s.expectedRolls(size), EPS);
+		assertEquals(7, s.expectedRolls(size - 7), EPS);
+		assertEquals(1 + (7 + 5 * 6) / 6.0, s.expectedRolls(size - 8), EPS);
+
+		// and further out, one roll plus the mean of the six tiles ahead
+		for (int t = 0; t < size - 6; t++)
+		{
+			double ahead = 0;
+			for (int r = 1; r <= 6; r++) ahead += s.expectedRolls(t + r);
+			assertEquals(1 + ahead / 6, s.expectedRolls(t), EPS);
+		}
+	}
+
+	@Test
+	public void bounceBackToTheSameTile()
+	{
+		// on a one-tile board only a 1 finishes; every other roll bounces back to the start
+		assertEquals(6, RollSolver.solve(moves(1, new HashMap<>())).expectedRolls(0), EPS);
+
+		// a snake whose tail is the tile before its head: a 1 from there lands back on it
+		Map<Integer, Integer> snakes = new HashMap<>();
+		snakes.put(5, 4);
+		BoardMoves board = moves(12, snakes);
+		RollSolver.Solution s = RollSolver.solve(board);
+		for (int t = 0; t < 12; t++)
+		{
+			double sum = 0;
+			for (int r = 1; r <= 6; r++) sum += s.expectedRolls(board.move(t, r));
+			assertEquals(1 + sum / 6, s.expectedRolls(t), EPS);
+		}
+		assertTrue(Double.isFinite(s.expectedRolls(4)));
+	}
+
+	@Test
+	public void inescapableSnakesAreInfinite()
+	{
+		// every tile from 4 to 9 sends the piece back to 1, and nothing below 4 reaches 10
+		Map<Integer, Integer> snakes = new HashMap<>();
+		for (int t = 4; t <= 9; t++) snakes.put(t, 1);
+		RollSolver.Solution s = RollSolver.solve(moves(10, snakes));
+
+		for (int t = 0; t <= 3; t++) assertEquals(Double.POSITIVE_INFINITY, s.expectedRolls(t), 0);
+		// from 9 a 1 finishes, but any other roll bounces into the trap, so it may never finish either
+		assertEquals(Double.POSITIVE_INFINITY, s.expectedRolls(9), 0);
+		assertEquals(0, s.expectedRolls(10), 0);
+		assertTrue(Double.isNaN(s.expectedRolls(11)));
+	}
+
+	private static BoardMoves moves(int size, Map<Integer, Integer> snakes)
+	{
+		BoardDto b = new BoardDto();
+		b.size = size;
+		b.snakes = snakes;
+		return BoardMoves.of(b, 10);
+	}
+}
@@ -0,0 +1,528 @@
+package com.snakesladders;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Update latency benchmark: time from "the overlay revision changed on the server" to "the
+ * InfoBox text and side panel show it", for each way a client can learn about a change.
+ *
+ * Each client runs the plugin's own {@link OverlayPoller} on its own scheduler: the conditional
+ * /overlay fetch, the /board fetch when the board revision moves, the /state fetch, the model
+ * publish, and the hop to a single-threaded stand-in for the client thread, where
+ * {@link SnakesLaddersPlugin#showSnapshot} updates the InfoBox and panel. The shared cache and
+ * party sync are the real ones too. The backend is a local stand-in that bumps the revision at
+ * random moments. Prints latency percentiles and backend request counts per mode. With {@code --baseline} it exits 1 when any
+ * mode's p99 is worse than the baseline by more than {@code --tolerance}; {@code --write-baseline}
+ * saves this run's numbers instead.
+ *
+ * {@code ./gradlew benchmark} checks against the committed bench-baseline.properties. Passing
+ * {@code --args} replaces that default, so keep the baseline in them:
+ *
+ * ./gradlew benchmark --args="--seconds 120 --baseline bench-baseline.properties"
+ * ./gradlew benchmark --args="--baseline bench-baseline.properties --write-baseline"
+ */
+public class SnakesLatencyBenchmark
+{
+	enum Mode
+	{
+		/** One client polling on its own. */
+		DIRECT(1),
+		/** Several local clients behind the memory-mapped cache. */
+		SHARED_CACHE(3),
+		/** A party of teammates; the leader polls and shares. */
+		PARTY(3);
+
+		final int clients;
+
+		Mode(int clients)
+		{
+			this.clients = clients;
+		}
+
+		String key()
+		{
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	private static final String GAME_ID = "bench";
+	private static final String TEAM_TOKEN = "bench-team-token";
+	private static final long MIN_BUMP_MS = 1_500;
+	private static final long MAX_BUMP_MS = 3_500;
+	// the board changes every this many overlay revisions
+	private static final int BOARD_EVERY = 10;
+	private static final int BOARD_SIZE = 100;
+
+	private final SnakesLaddersPlugin plugin = new SnakesLaddersPlugin();
+	private final BufferedImage icon = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
+	public static void main(String[] args) throws Exception
+	{
+		int seconds = 60;
+		double tolerance = 0.25;
+		File baseline = null;
+		boolean writeBaseline = false;
+
+		for (int i = 0; i < args.length; i++)
+		{
+			switch (args[i])
+			{
+				case "--seconds":
+					seconds = Integer.parseInt(args[++i]);
+					break;
+				case "--tolerance":
+					tolerance = Double.parseDouble(args[++i]);
+					break;
+				case "--baseline":
+					baseline = new File(args[++i]);
+					break;
+				case "--write-baseline":
+					writeBaseline = true;
+					break;
+				default:
+					System.err.println("Unknown argument: " + args[i]);
+					System.exit(2);
+			}
+		}
+
+		SnakesLatencyBenchmark bench = new SnakesLatencyBenchmark();
+		Properties results = new Properties();
+
+		System.out.printf("%-13s %7s %9s %9s %9s %9s %9s %7s %7s %7s%n",
+			"mode", "updates", "p50 ms", "p90 ms", "p99 ms", "max ms", "errors", "overlay", "board", "state");
+		for (Mode mode : Mode.values())
+		{
+			Result r = bench.run(mode, seconds);
+			System.out.printf("%-13s %7d %9.1f %9.1f %9.1f %9.1f %9d %7d %7d %7d%n",
+				mode.key(), r.shown.size, r.shown.percentile(50), r.shown.percentile(90), r.shown.percentile(99),
+				r.shown.percentile(100), r.errors.get(), r.overlayRequests, r.boardRequests, r.stateRequests);
+			results.setProperty(mode.key() + ".p99Ms", String.format(Locale.ROOT, "%.1f", r.shown.percentile(99)));
+		}
+
+		if (baseline == null) return;
+
+		if (writeBaseline)
+		{
+			try (OutputStream out = new FileOutputStream(baseline))
+			{
+				results.store(out, "SnakesLatencyBenchmark p99 baseline");
+			}
+			System.out.println("Baseline written to " + baseline);
+			return;
+		}
+
+		Properties base = new Properties();
+		try (InputStream in = new FileInputStream(baseline))
+		{
+			base.load(in);
+		}
+
+		boolean regressed = false;
+		for (String key : results.stringPropertyNames())
+		{
+			String was = base.getProperty(key);
+			if (was == null) continue;
+
+			double now = Double.parseDouble(results.getProperty(key));
+			double limit = Double.parseDouble(was) * (1 + tolerance);
+			if (now > limit)
+			{
+				System.out.printf("REGRESSION %s: %.1f ms > %.1f ms (baseline %s + %.0f%%)%n", key, now, limit, was, tolerance * 100);
+				regressed = true;
+			}
+		}
+		if (regressed) System.exit(1);
+		System.out.println("p99 within " + Math.round(tolerance * 100) + "% of baseline");
+	}
+
+	private Result run(Mode mode, int seconds) throws Exception
+	{
+		// server revision bumps and party heartbeats
+		ScheduledExecutorService clock = new ScheduledThreadPoolExecutor(1);
+		File cacheFile = Files.createTempFile("snakes-bench", ".bin").toFile();
+		LocalPartyTransport.Hub hub = new LocalPartyTransport.Hub();
+		List<SharedCache> caches = new ArrayList<>();
+		List<Client> clients = new ArrayList<>();
+		Result result = new Result();
+
+		try (StandIn server = new StandIn())
+		{
+			SnakesLaddersConfig config = config(server.baseUrl(), mode == Mode.PARTY);
+			for (int i = 0; i < mode.clients; i++)
+			{
+				SharedCache cache = mode == Mode.SHARED_CACHE ? new SharedCache(cacheFile) : null;
+				if (cache != null) caches.add(cache);
+				LocalPartyTransport transport = mode == Mode.PARTY ? new LocalPartyTransport(hub) : null;
+
+				Client c = new Client("bench" + i, config, cache, transport, server, result);
+				// only revisions bumped after the start are measured
+				c.shown = server.revision.get();
+				clients.add(c);
+			}
+
+			server.start(clock);
+			for (Client c : clients)
+			{
+				clock.schedule(c::start, ThreadLocalRandom.current().nextLong(1_000), TimeUnit.MILLISECONDS);
+			}
+
+			Thread.sleep(seconds * 1000L);
+			clock.shutdownNow();
+			clock.awaitTermination(5, TimeUnit.SECONDS);
+			for (Client c : clients) c.stop();
+
+			result.overlayRequests = server.overlayRequests.get();
+			result.boardRequests = server.boardRequests.get();
+			result.stateRequests = server.stateRequests.get();
+		}
+		finally
+		{
+			clock.shutdownNow();
+			for (Client c : clients) c.close();
+			for (SharedCache cache : caches) cache.close();
+			cacheFile.delete();
+		}
+		return result;
+	}
+
+	/**
+	 * Every revision between what was on screen and what is now counts as shown at {@code atNs},
+	 * so revisions skipped between polls still pay their full wait.
+	 */
+	private static int record(int shown, int revision, long atNs, StandIn server, Samples samples)
+	{
+		for (int r = shown + 1; r <= revision; r++)
+		{
+			Long bumped = server.bumpedAt.get(r);
+			if (bumped != null) samples.add(atNs - bumped);
+		}
+		return Math.max(shown, revision);
+	}
+
+	private static int revision(String etag)
+	{
+		return Integer.parseInt(etag.replaceAll("[^0-9]", ""));
+	}
+
+	private static SnakesLaddersConfig config(String baseUrl, boolean partySync)
+	{
+		return new SnakesLaddersConfig()
+		{
+			@Override
+			public String apiBaseUrl()
+			{
+				return baseUrl;
+			}
+
+			@Override
+			public String gameId()
+			{
+				return GAME_ID;
+			}
+
+			@Override
+			public String jwtToken()
+			{
+				return TEAM_TOKEN;
+			}
+
+			@Override
+			public int pollMinSeconds()
+			{
+				return 1;
+			}
+
+			@Override
+			public boolean partySync()
+			{
+				return partySync;
+			}
+		};
+	}
+
+	/**
+	 * One game client: its own scheduler and HTTP client, a single thread standing in for the
+	 * client thread, and the plugin's poller and UI step.
+	 */
+	private final class Client implements OverlayPoller.Listener
+	{
+		final String rsn;
+		final StandIn server;
+		final Result result;
+		final SnakesScheduler scheduler = new SnakesScheduler();
+		final ExecutorService clientThread = Executors.newSingleThreadExecutor();
+		final AtomicReference<OverlayModel> model = new AtomicReference<>(OverlayModel.EMPTY);
+		final SnakesTileInfoBox infoBox = new SnakesTileInfoBox(icon, plugin);
+		final SnakesLaddersPanel panel = new SnakesLaddersPanel();
+		final PartySync sync;
+		final OverlayPoller poller;
+		volatile TileChatMatcher chatMatcher = TileChatMatcher.EMPTY;
+		// highest revision shown; client thread only
+		int shown;
+
+		Client(String rsn, SnakesLaddersConfig config, SharedCache cache, LocalPartyTransport transport, StandIn server, Result result)
+		{
+			this.rsn = rsn;
+			this.server = server;
+			this.result = result;
+
+			SnakesApiClient api = SnakesApiClient.fromConfig(config, scheduler, cache, null, null);
+			sync = transport == null ? null : new PartySync(transport);
+			if (sync != null) sync.setIdentity(GAME_ID, TEAM_TOKEN);
+			poller = new OverlayPoller(config, scheduler, clientThread, () -> api, model, sync, this);
+			if (transport != null) transport.onReceive(poller::onShared);
+		}
+
+		void start()
+		{
+			clientThread.execute(() ->
+			{
+				poller.setClientState(true, rsn);
+				poller.start();
+			});
+			if (sync != null)
+			{
+				// the plugin's tick
+				scheduler.scheduleAtFixedRate(SnakesScheduler.Priority.NORMAL,
+					() -> clientThread.execute(() -> sync.heartbeat(System.currentTimeMillis())), 0, 1_000);
+			}
+		}
+
+		void stop() throws InterruptedException
+		{
+			poller.stop();
+			clientThread.shutdown();
+			clientThread.awaitTermination(5, TimeUnit.SECONDS);
+		}
+
+		void close()
+		{
+			poller.stop();
+			scheduler.shutdown();
+			clientThread.shutdownNow();
+		}
+
+		@Override
+		public void boardLoaded(BoardDto board)
+		{
+			chatMatcher = TileChatMatcher.build(board);
+		}
+
+		@Override
+		public void overlayApplied(SnakesApiClient api, OverlayModel before, OverlayModel after, String etag)
+		{
+			SnakesLaddersPlugin.showSnapshot(panel, infoBox, api.hasJwt(), after);
+			shown = record(shown, revision(etag), System.nanoTime(), server, result.shown);
+		}
+
+		@Override
+		public void overlayFailed()
+		{
+			result.errors.incrementAndGet();
+		}
+
+		@Override
+		public void notConnected()
+		{
+			result.errors.incrementAndGet();
+		}
+	}
+
+	private static final class Result
+	{
+		final Samples shown = new Samples();
+		final AtomicLong errors = new AtomicLong();
+		long overlayRequests;
+		long boardRequests;
+		long stateRequests;
+	}
+
+	private static final class Samples
+	{
+		private long[] ns = new long[1024];
+		int size;
+
+		synchronized void add(long value)
+		{
+			if (size == ns.length) ns = Arrays.copyOf(ns, size * 2);
+			ns[size++] = value;
+		}
+
+		synchronized double percentile(int p)
+		{
+			if (size == 0) return 0;
+			long[] sorted = Arrays.copyOf(ns, size);
+			Arrays.sort(sorted);
+			int i = (int) Math.ceil(p / 100.0 * size) - 1;
+			return sorted[Math.max(0, Math.min(size - 1, i))] / 1_000_000.0;
+		}
+	}
+
+	/**
+	 * Minimal backend: /overlay with an ETag per revision, 304 on a match, a 1 s poll hint, and a
+	 * revision bump every 1.5-3.5 s; /board, whose revision moves every {@link #BOARD_EVERY}
+	 * overlay revisions; /state with the standings.
+	 */
+	private static final class StandIn implements AutoCloseable
+	{
+		final HttpServer server;
+		final AtomicInteger revision = new AtomicInteger();
+		final Map<Integer, Long> bumpedAt = new ConcurrentHashMap<>();
+		final AtomicLong overlayRequests = new AtomicLong();
+		final AtomicLong boardRequests = new AtomicLong();
+		final AtomicLong stateRequests = new AtomicLong();
+		private ScheduledExecutorService clock;
+
+		StandIn() throws IOException
+		{
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			server.createContext("/games/" + GAME_ID + "/overlay", this::overlay);
+			server.createContext("/games/" + GAME_ID + "/board", this::board);
+			server.createContext("/games/" + GAME_ID + "/state", this::state);
+			// the HttpServer default runs every exchange on the accept thread
+			server.setExecutor(Executors.newCachedThreadPool());
+			bump();
+		}
+
+		String baseUrl()
+		{
+			return "http://127.0.0.1:" + server.getAddress().getPort();
+		}
+
+		void start(ScheduledExecutorService clock)
+		{
+			this.clock = clock;
+			server.start();
+			scheduleBump();
+		}
+
+		private void scheduleBump()
+		{
+			long delay = ThreadLocalRandom.current().nextLong(MIN_BUMP_MS, MAX_BUMP_MS);
+			clock.schedule(() ->
+			{
+				bump();
+				scheduleBump();
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+
+		private void bump()
+		{
+			int r = revision.get() + 1;
+			bumpedAt.put(r, System.nanoTime());
+			revision.set(r);
+		}
+
+		private void overlay(HttpExchange ex) throws IOException
+		{
+			overlayRequests.incrementAndGet();
+			int r = revision.get();
+			String etag = "\"r" + r + "\"";
+			ex.getResponseHeaders().set("etag", etag);
+			ex.getResponseHeaders().set(SnakesApi.POLL_INTERVAL_HEADER, "1");
+
+			if (etag.equals(ex.getRequestHeaders().getFirst("if-none-match")))
+			{
+				ex.sendResponseHeaders(304, -1);
+				ex.close();
+				return;
+			}
+
+			send(ex, "{\"revision\":" + r
+				+ ",\"phase\":\"running\""
+				+ ",\"endTime\":\"" + Instant.now().plusSeconds(3600) + "\""
+				+ ",\"tile\":{\"tileIndex\":" + (r % BOARD_SIZE) + ",\"kind\":\"task\",\"title\":\"Tile " + r + "\",\"description\":\"\"}"
+				+ ",\"flags\":{\"awaitingProof\":false}"
+				+ ",\"boardRevision\":\"" + boardRevision(r) + "\"}");
+		}
+
+		private void board(HttpExchange ex) throws IOException
+		{
+			boardRequests.incrementAndGet();
+			int b = boardRevision(revision.get());
+			String etag = "\"b" + b + "\"";
+			ex.getResponseHeaders().set("etag", etag);
+
+			String ifNoneMatch = ex.getRequestHeaders().getFirst("if-none-match");
+			if (etag.equals(ifNoneMatch) || "*".equals(ifNoneMatch))
+			{
+				ex.sendResponseHeaders(304, -1);
+				ex.close();
+				return;
+			}
+
+			StringBuilder tiles = new StringBuilder();
+			for (int i = 0; i < BOARD_SIZE; i++)
+			{
+				if (i > 0) tiles.append(',');
+				tiles.append("{\"tileIndex\":").append(i)
+					.append(",\"kind\":\"boss\",\"title\":\"Kill boss ").append(i).append(" (board ").append(b).append(")\"")
+					.append(",\"boss\":\"Boss ").append(i).append("\",\"kills\":").append(1 + i % 5)
+					.append(",\"estimateMinutes\":").append(10 + i % 50).append('}');
+			}
+			send(ex, "{\"revision\":\"" + b + "\",\"size\":" + BOARD_SIZE
+				+ ",\"snakes\":{\"" + (40 + b % 50) + "\":5},\"ladders\":{\"3\":" + (20 + b % 50) + "}"
+				+ ",\"tiles\":[" + tiles + "]}");
+		}
+
+		private void state(HttpExchange ex) throws IOException
+		{
+			stateRequests.incrementAndGet();
+			int r = revision.get();
+			send(ex, "{\"tile\":" + (r % BOARD_SIZE) + ",\"awaitingProof\":false"
+				+ ",\"standings\":{\"Sixth Degree\":" + (r % BOARD_SIZE) + ",\"Rivals\":" + (r * 7 % BOARD_SIZE) + "}}");
+		}
+
+		private static int boardRevision(int revision)
+		{
+			return 1 + revision / BOARD_EVERY;
+		}
+
+		private static void send(HttpExchange ex, String json) throws IOException
+		{
+			byte[] body = json.getBytes(StandardCharsets.UTF_8);
+			ex.getResponseHeaders().set("content-type", "application/json");
+			ex.sendResponseHeaders(200, body.length);
+			try (OutputStream out = ex.getResponseBody())
+			{
+				out.write(body);
+			}
+		}
+
+		@Override
+		public void close()
+		{
+			server.stop(0);
+			((ExecutorService) server.getExecutor()).shutdownNow();
+		}
+	}
+}
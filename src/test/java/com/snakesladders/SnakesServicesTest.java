@@ -0,0 +1,211 @@
+package com.snakesladders;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SnakesServicesTest
+{
+	private static final long LEAK_WAIT_MS = 30_000;
+	private static final String GAME_ID = "game_1";
+
+	private HttpServer server;
+	private String baseUrl;
+	private File dir;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/games/" + GAME_ID + "/overlay", ex -> send(ex, "{\"revision\":1,\"phase\":\"running\""
+			+ ",\"tile\":{\"tileIndex\":3,\"kind\":\"task\",\"title\":\"Tile 3\",\"description\":\"\"}"
+			+ ",\"flags\":{\"awaitingProof\":false},\"boardRevision\":\"1\"}"));
+		server.createContext("/games/" + GAME_ID + "/board", ex -> send(ex, "{\"revision\":\"1\",\"size\":10"
+			+ ",\"snakes\":{\"8\":2},\"ladders\":{\"1\":6},\"tiles\":[]}"));
+		server.createContext("/games/" + GAME_ID + "/state", ex -> send(ex, "{\"tile\":3,\"awaitingProof\":false"
+			+ ",\"standings\":{\"Sixth Degree\":3}}"));
+		server.start();
+		baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+		dir = Files.createTempDirectory("snakes").toFile();
+	}
+
+	@After
+	public void tearDown()
+	{
+		server.stop(0);
+		for (File f : dir.listFiles()) f.delete();
+		dir.delete();
+	}
+
+	/**
+	 * Enabling and disabling the plugin ten times, with the trace, recorder, shared cache and
+	 * party sharing all on, must not leave any of its threads behind, including the HTTP
+	 * client's selector thread.
+	 */
+	@Test
+	public void toggleLeaksNoThreads() throws Exception
+	{
+		List<String> before = pluginThreads();
+		SnakesLaddersConfig config = config();
+
+		for (int i = 0; i < 10; i++)
+		{
+			// what startUp does
+			SnakesServices services = new SnakesServices(config, dir);
+			SnakesScheduler scheduler = services.scheduler();
+			SnakesApiClient api = services.buildApi();
+			LocalPartyTransport.Hub hub = new LocalPartyTransport.Hub();
+			PartySync sync = new PartySync(new LocalPartyTransport(hub));
+			sync.setIdentity(GAME_ID, "team-token");
+			new LocalPartyTransport(hub);
+			CountDownLatch applied = new CountDownLatch(1);
+			OverlayPoller poller = new OverlayPoller(config, scheduler, Runnable::run, () -> api,
+				new AtomicReference<>(OverlayModel.EMPTY), sync, listener(applied));
+
+			// a poll, the party heartbeat and a simulation, so every pool has started a thread
+			poller.setClientState(true, "Sixth Degree");
+			poller.start();
+			sync.heartbeat(System.currentTimeMillis());
+			assertTrue(applied.await(5, TimeUnit.SECONDS));
+			assertEquals(Integer.valueOf(1), scheduler.compute().submit(() -> 1).get());
+
+			// what shutDown does
+			poller.stop();
+			services.shutdown();
+		}
+
+		List<String> leaked = new ArrayList<>();
+		long deadline = System.currentTimeMillis() + LEAK_WAIT_MS;
+		do
+		{
+			// before JDK 21 the selector thread only exits once its client has been collected
+			System.gc();
+			Thread.sleep(100);
+			leaked = pluginThreads();
+			leaked.removeAll(before);
+		}
+		while (!leaked.isEmpty() && System.currentTimeMillis() < deadline);
+
+		assertEquals(new ArrayList<String>(), leaked);
+		// the logs' last writes ran after shutdown
+		assertTrue(new File(dir, HttpTrace.FILE_NAME).length() > 0);
+		assertTrue(new File(dir, SharedCache.FILE_NAME).exists());
+	}
+
+	private SnakesLaddersConfig config()
+	{
+		return new SnakesLaddersConfig()
+		{
+			@Override
+			public String apiBaseUrl()
+			{
+				return baseUrl;
+			}
+
+			@Override
+			public String gameId()
+			{
+				return GAME_ID;
+			}
+
+			@Override
+			public String jwtToken()
+			{
+				return "team-token";
+			}
+
+			@Override
+			public boolean partySync()
+			{
+				return true;
+			}
+
+			@Override
+			public boolean shareAcrossClients()
+			{
+				return true;
+			}
+
+			@Override
+			public boolean httpTrace()
+			{
+				return true;
+			}
+
+			@Override
+			public boolean recordTraffic()
+			{
+				return true;
+			}
+		};
+	}
+
+	private static OverlayPoller.Listener listener(CountDownLatch applied)
+	{
+		return new OverlayPoller.Listener()
+		{
+			@Override
+			public void boardLoaded(BoardDto board)
+			{
+			}
+
+			@Override
+			public void overlayApplied(SnakesApiClient api, OverlayModel before, OverlayModel after, String etag)
+			{
+				applied.countDown();
+			}
+
+			@Override
+			public void overlayFailed()
+			{
+			}
+
+			@Override
+			public void notConnected()
+			{
+			}
+		};
+	}
+
+	private static void send(HttpExchange ex, String json) throws IOException
+	{
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		ex.getResponseHeaders().set("content-type", "application/json");
+		ex.sendResponseHeaders(200, body.length);
+		try (OutputStream out = ex.getResponseBody())
+		{
+			out.write(body);
+		}
+	}
+
+	private static List<String> pluginThreads()
+	{
+		List<String> names = new ArrayList<>();
+		for (Thread t : Thread.getAllStackTraces().keySet())
+		{
+			String name = t.getName();
+			if (t.isAlive() && (name.startsWith(SnakesScheduler.THREAD_PREFIX) || name.startsWith("HttpClient-")))
+			{
+				names.add(name);
+			}
+		}
+		return names;
+	}
+}
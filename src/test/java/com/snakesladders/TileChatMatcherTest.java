@@ -0,0 +1,64 @@
+package com.snakesladders;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TileChatMatcherTest
+{
+	@Test
+	public void tilesSharingAPhraseEachMatch()
+	{
+		TileChatMatcher matcher = TileChatMatcher.build(board(
+			tile(4, "Kill Vorkath"),
+			tile(9, "Obtain a Dragon pickaxe"),
+			tile(17, "Kill Vorkath")));
+
+		String kc = "Your Vorkath kill count is: <col=ff0000>42</col>.";
+		assertEquals(4, matcher.match(kc, 4));
+		assertEquals(17, matcher.match(kc, 17));
+		// not on either tile: the first one that matches
+		assertEquals(4, matcher.match(kc, 9));
+	}
+
+	@Test
+	public void sharedPhraseInsideALongerOne()
+	{
+		TileChatMatcher matcher = TileChatMatcher.build(board(
+			tile(3, "Obtain a Dragon pickaxe"),
+			tile(8, "Pickaxe"),
+			tile(12, "Dragon pickaxe or Dragon axe")));
+
+		String drop = "Valuable drop: Dragon pickaxe (1,203,114 coins)";
+		assertEquals(3, matcher.match(drop, 3));
+		assertEquals(8, matcher.match(drop, 8));
+		assertEquals(12, matcher.match(drop, 12));
+		assertEquals(-1, matcher.match("Valuable drop: Rune axe", 12));
+	}
+
+	@Test
+	public void emptyBoard()
+	{
+		assertTrue(TileChatMatcher.build(board()).isEmpty());
+		assertEquals(-1, TileChatMatcher.EMPTY.match("Your Vorkath kill count is: 42.", 4));
+	}
+
+	private static BoardDto board(BoardDto.Tile... tiles)
+	{
+		BoardDto b = new BoardDto();
+		b.tiles = new ArrayList<>();
+		for (BoardDto.Tile t : tiles) b.tiles.add(t);
+		return b;
+	}
+
+	private static BoardDto.Tile tile(int index, String title)
+	{
+		BoardDto.Tile t = new BoardDto.Tile();
+		t.tileIndex = index;
+		t.title = title;
+		return t;
+	}
+}
@@ -0,0 +1,85 @@
+package com.snakesladders;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TileImageCacheTest
+{
+	private static final int TILES = 20;
+
+	private HttpServer server;
+	private SnakesScheduler scheduler;
+	private String base;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB), "png", png);
+		byte[] body = png.toByteArray();
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", ex ->
+		{
+			ex.sendResponseHeaders(200, body.length);
+			try (OutputStream out = ex.getResponseBody())
+			{
+				out.write(body);
+			}
+		});
+		server.start();
+		base = "http://127.0.0.1:" + server.getAddress().getPort() + "/tile/";
+		scheduler = new SnakesScheduler();
+	}
+
+	@After
+	public void tearDown()
+	{
+		scheduler.shutdown();
+		server.stop(0);
+	}
+
+	@Test
+	public void malformedUrlOnlyLosesItsOwnTile() throws Exception
+	{
+		BoardDto board = new BoardDto();
+		board.tiles = new ArrayList<>();
+		for (int i = 0; i < TILES; i++)
+		{
+			BoardDto.Tile t = new BoardDto.Tile();
+			t.tileIndex = i;
+			// a space makes URI.create throw; it sits in the first window
+			t.imageUrl = i == 2 ? base + "bad name.png" : base + i + ".png";
+			board.tiles.add(t);
+		}
+
+		Map<Integer, BufferedImage> loaded = new ConcurrentHashMap<>();
+		CountDownLatch done = new CountDownLatch(TILES - 1);
+		new TileImageCache(scheduler).fetchTiles(board, (tile, img) ->
+		{
+			loaded.put(tile, img);
+			done.countDown();
+		});
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertEquals(TILES - 1, loaded.size());
+		assertFalse(loaded.containsKey(2));
+	}
+}
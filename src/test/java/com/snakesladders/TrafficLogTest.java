@@ -0,0 +1,173 @@
+package com.snakesladders;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TrafficLogTest
+{
+	private File dir;
+	private SnakesScheduler scheduler;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		dir = Files.createTempDirectory("traffic").toFile();
+		scheduler = new SnakesScheduler();
+	}
+
+	@After
+	public void tearDown()
+	{
+		scheduler.shutdown();
+		for (File f : dir.listFiles()) f.delete();
+		dir.delete();
+	}
+
+	@Test
+	public void replaysWhatWasRecorded() throws Exception
+	{
+		TrafficLog.Replay replay = TrafficLog.load(session());
+		assertEquals("game_1", replay.gameId);
+		assertEquals(8, replay.size());
+
+		// first overlay, with the board and state fetched right after it
+		assertEquals("o1", replay.respond("overlay", null).body);
+		assertEquals("b1", replay.respond("board", null).body);
+		assertEquals("s1", replay.respond("state", null).body);
+
+		// second overlay: the latest state before the third overlay, not the first one recorded
+		assertEquals("o2", replay.respond("overlay", "\"o1\"").body);
+		assertEquals("s3", replay.respond("state", null).body);
+		// no board was fetched for this one, so the one still current
+		assertEquals("b1", replay.respond("board", null).body);
+
+		// a recorded 304 is served as it was; everything after the last overlay is in reach
+		SnakesApi.ApiResult notModified = replay.respond("overlay", "\"o2\"");
+		assertTrue(notModified.isNotModified());
+		assertEquals("s4", replay.respond("state", null).body);
+		assertTrue(replay.isFinished());
+
+		// past the end, every overlay request is answered "not modified"
+		SnakesApi.ApiResult end = replay.respond("overlay", "\"o2\"");
+		assertTrue(end.isNotModified());
+		assertEquals("\"o2\"", end.etag);
+	}
+
+	@Test
+	public void matchingEtagIsNotModified() throws Exception
+	{
+		TrafficLog.Replay replay = TrafficLog.load(session());
+		replay.respond("overlay", null);
+
+		SnakesApi.ApiResult board = replay.respond("board", "\"b1\"");
+		assertTrue(board.isNotModified());
+		assertNull(board.body);
+		assertEquals("\"b1\"", board.etag);
+		assertEquals("b1", replay.respond("board", "\"b0\"").body);
+	}
+
+	@Test
+	public void truncatedLastRecordEndsTheReplay() throws Exception
+	{
+		File file = session();
+		byte[] raw;
+		try (InputStream in = new GZIPInputStream(new FileInputStream(file)))
+		{
+			raw = in.readAllBytes();
+		}
+
+		// what a crash mid-record leaves: part of the last record, and no gzip trailer
+		File cut = new File(dir, "cut" + TrafficLog.EXTENSION);
+		FileOutputStream fileOut = new FileOutputStream(cut);
+		GZIPOutputStream gz = new GZIPOutputStream(fileOut, 8192, true);
+		gz.write(Arrays.copyOf(raw, raw.length - 3));
+		gz.flush();
+		fileOut.close();
+
+		TrafficLog.Replay replay = TrafficLog.load(cut);
+		assertEquals(7, replay.size());
+		assertEquals("o1", replay.respond("overlay", null).body);
+		assertEquals("o2", replay.respond("overlay", null).body);
+		assertTrue(replay.respond("overlay", null).isNotModified());
+		// s4 was the record cut short
+		assertEquals("s3", replay.respond("state", null).body);
+	}
+
+	@Test
+	public void closedLogDropsRecords() throws Exception
+	{
+		TrafficLog log = new TrafficLog(dir, "game_1", scheduler);
+		log.record("overlay", ok("o1"));
+		log.close();
+		log.record("overlay", ok("o2"));
+		assertEquals(1, log.getDropped());
+		assertEquals(1, await(log.getFile()).size());
+	}
+
+	/**
+	 * Records a session and waits for the writer to finish it. Overlay, board and state are
+	 * fetched together, then only the overlay and state, then a 304 overlay. Posts and unknown
+	 * endpoints are left out.
+	 */
+	private File session() throws Exception
+	{
+		TrafficLog log = new TrafficLog(dir, "game_1", scheduler);
+		log.record("overlay", ok("o1"));
+		log.record("board", ok("b1"));
+		log.record("state", ok("s1"));
+		log.record("roll", ok("r1"));
+		log.record("overlay", ok("o2"));
+		log.record("state", ok("s2"));
+		log.record("state", ok("s3"));
+		log.record("overlay", new SnakesApi.ApiResult(304, null, "\"o2\"", 5));
+		log.record("state", ok("s4"));
+		log.close();
+
+		assertEquals(0, log.getDropped());
+		await(log.getFile());
+		return log.getFile();
+	}
+
+	private static SnakesApi.ApiResult ok(String body)
+	{
+		return new SnakesApi.ApiResult(200, body, "\"" + body + "\"", 5);
+	}
+
+	/**
+	 * Loads {@code file} once the writer thread has closed it, which is when the gzip stream
+	 * ends properly.
+	 */
+	private static TrafficLog.Replay await(File file) throws Exception
+	{
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (true)
+		{
+			try (InputStream in = new GZIPInputStream(new FileInputStream(file)))
+			{
+				in.readAllBytes();
+				return TrafficLog.load(file);
+			}
+			catch (IOException ex)
+			{
+				// not created yet, or still open
+				if (System.currentTimeMillis() > deadline) throw ex;
+			}
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.snakesladders;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class WinSimulatorTest
+{
+	private static final int SIZE = 30;
+	private static final int TRIALS = 40_000;
+	private static final long SEED = 42;
+
+	private final ForkJoinPool pool = new ForkJoinPool(4);
+
+	@After
+	public void tearDown()
+	{
+		pool.shutdownNow();
+	}
+
+	@Test
+	public void symmetricTeamsSplitEvenly()
+	{
+		String[] teams = {"A", "B", "C", "D"};
+		WinSimulator.Result r = WinSimulator.run(board(), teams, new int[4], Double.POSITIVE_INFINITY, TRIALS, pool, SEED);
+
+		double total = 0;
+		for (double p : r.winProbability)
+		{
+			assertEquals(0.25, p, 0.02);
+			total += p;
+		}
+		assertEquals(1, total, 1e-9);
+	}
+
+	@Test
+	public void teamOnTheLastTileAlwaysWins()
+	{
+		String[] teams = {"A", "B", "C"};
+		WinSimulator.Result r = WinSimulator.run(board(), teams, new int[]{SIZE - 1, SIZE, 20}, Double.POSITIVE_INFINITY, TRIALS, pool, SEED);
+
+		assertArrayEquals(new double[]{0, 1, 0}, r.winProbability, 0);
+		assertEquals(0, r.etaMinutes[1], 0);
+	}
+
+	@Test
+	public void noTimeLeftGoesToTheFurthest()
+	{
+		String[] teams = {"A", "B", "C"};
+		WinSimulator.Result r = WinSimulator.run(board(), teams, new int[]{5, 12, 12}, 0, TRIALS, pool, SEED);
+
+		assertArrayEquals(new double[]{0, 0.5, 0.5}, r.winProbability, 1e-12);
+		// nobody finished
+		for (double eta : r.etaMinutes) assertEquals(Double.NaN, eta, 0);
+	}
+
+	@Test
+	public void sameSeedSameResult()
+	{
+		String[] teams = {"A", "B", "C"};
+		int[] positions = {3, 9, 14};
+		WinSimulator.Result a = WinSimulator.run(board(), teams, positions, 600, TRIALS, pool, SEED);
+		// however the trials end up spread over threads
+		ForkJoinPool single = new ForkJoinPool(1);
+		WinSimulator.Result b = WinSimulator.run(board(), teams, positions, 600, TRIALS, single, SEED);
+		single.shutdownNow();
+
+		assertArrayEquals(a.winProbability, b.winProbability, 0);
+		assertArrayEquals(a.etaMinutes, b.etaMinutes, 0);
+	}
+
+	/**
+	 * A plain board with one snake and one ladder, 30 minutes a tile.
+	 */
+	private static BoardMoves board()
+	{
+		BoardDto b = new BoardDto();
+		b.size = SIZE;
+		b.snakes = Map.of(22, 7);
+		b.ladders = Map.of(4, 16);
+		return BoardMoves.of(b, 30);
+	}
+}